@@ -0,0 +1,273 @@
+import java.util.Arrays;
+
+/**
+ * Point-to-point Dijkstra that grows one search forward from the source
+ * and one backward from the destination, always advancing the side with
+ * the smaller queue. Every time a node gets a distance from both sides,
+ * the path through it is a candidate. The search stops once the two queue
+ * minimums add up to at least the best candidate, since no path found
+ * later can be shorter. On a graph where the balls around both ends grow
+ * alike, each side only explores about half the radius, so far fewer
+ * nodes are settled than by a single search.
+ *
+ * The backward side runs on the reversed graph. For the undirected graphs
+ * MtxLoader produces that is the same graph, but any graph works if its
+ * reverse is passed in. An instance can be reused for any number of
+ * queries; only the nodes touched by the previous query are reset.
+ *
+ * The meeting point alone does not say which of several equally good paths
+ * ShortestPathSearch would pick. Both sides relax edges with its tie-break,
+ * so the forward side holds exactly the labels ShortestPathSearch would
+ * have for the nodes it settled. Once the distance is known, the forward
+ * side alone goes on until it settles the destination, skipping every node
+ * whose distance plus the bound the backward side gives - exact for the
+ * nodes it settled, its queue minimum for all others - exceeds the best
+ * distance. Every node of a best path passes that test, so the path read
+ * from the forward predecessors is the one ShortestPathSearch returns,
+ * ties included, and only a narrow band past the meeting point is added.
+ * Both phases allow a relative SLACK over the best distance, so that
+ * rounding in the distance sums cannot leave a node of a best path out.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class BidirectionalSearch {
+
+    // relative margin past the best distance that both phases explore
+    private static final double SLACK = 1e-9;
+
+    private final Side forward;
+    private final Side backward;
+    // the backward queue minimum when the first phase stopped
+    private double backwardTop;
+    private int source;
+    private int destination;
+    private int meet = -1;
+    private double best = Double.POSITIVE_INFINITY;
+    private int settled;
+
+
+    /**
+     * @param graph   the graph, with weights -log(p)
+     * @param reverse the graph with every edge turned around, see
+     *                GraphCSR.Builder.reversed
+     */
+    public BidirectionalSearch(Graph graph, Graph reverse) {
+        this.forward = new Side(graph);
+        this.backward = new Side(reverse);
+    }
+
+
+    /**
+     * Find the best path from source to destination
+     *
+     * @param source      the start node
+     * @param destination the end node
+     * @return true if destination can be reached from source
+     */
+    public boolean run(int source, int destination) {
+        forward.reset();
+        backward.reset();
+        this.source = source;
+        this.destination = destination;
+        meet = -1;
+        best = Double.POSITIVE_INFINITY;
+        settled = 0;
+        forward.start(source);
+        backward.start(destination);
+        if (source == destination) {
+            forward.heap.clear();
+            backward.heap.clear();
+            meet = source;
+            best = 0;
+            return true;
+        }
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+            double top = forward.dist[forward.heap.peek()] + backward.dist[backward.heap.peek()];
+            if (top > best + best * SLACK) {
+                break;
+            }
+            if (forward.heap.size() <= backward.heap.size()) {
+                step(forward, backward);
+            } else {
+                step(backward, forward);
+            }
+        }
+        if (meet >= 0) {
+            backwardTop = backward.heap.isEmpty() ? Double.POSITIVE_INFINITY
+                    : backward.dist[backward.heap.peek()];
+            retrace();
+        }
+        settled = forward.settled + backward.settled;
+        forward.heap.clear();
+        backward.heap.clear();
+        return meet >= 0;
+    }
+
+
+    /**
+     * @return the -log probability of the path the last query found, or
+     *         positive infinity if there was none
+     */
+    public double distance() {
+        return best;
+    }
+
+
+    /**
+     * @return the nodes from source to destination, both included, or an
+     *         empty array if the last query found no path
+     */
+    public int[] path() {
+        return transmissionPath().nodes();
+    }
+
+
+    /**
+     * @return the path the last query found, with the probability of
+     *         every hop and the number of nodes the query settled
+     */
+    public TransmissionPath transmissionPath() {
+        if (meet < 0) {
+            return new TransmissionPath(source, destination, new int[0], new double[0])
+                    .withSettledCount(settled);
+        }
+        return TransmissionPath.walk(source, destination, v -> forward.pred[v],
+                v -> forward.dist[v], forward.dist.length).withSettledCount(settled);
+    }
+
+
+    /**
+     * @return the number of nodes the last query settled, both phases and
+     *         both sides together
+     */
+    public int settledCount() {
+        return settled;
+    }
+
+    /**
+     * Second phase: carry on with the forward side alone until it settles
+     * the destination, leaving out the nodes that cannot be on a best path
+     */
+    private void retrace() {
+        double limit = best + best * SLACK;
+        if (forward.dist[destination] != Double.POSITIVE_INFINITY
+                && !forward.heap.contains(destination)) {
+            best = forward.dist[destination];
+            return; // the first phase already settled it
+        }
+        while (!forward.heap.isEmpty()) {
+            int node = forward.heap.poll();
+            if (node == destination) {
+                forward.settled++;
+                break;
+            }
+            double d = forward.dist[node];
+            if (d + bound(node) > limit) {
+                continue; // cannot be on a best path
+            }
+            forward.settled++;
+            forward.cursor.reset(node);
+            while (forward.cursor.next()) {
+                int neighbor = forward.cursor.target();
+                double temp = d + forward.cursor.weight();
+                if (temp + bound(neighbor) <= limit) {
+                    forward.relax(neighbor, temp, node);
+                }
+            }
+        }
+        best = forward.dist[destination];
+    }
+
+    // Lower bound on the distance from v to the destination: exact if the
+    // backward side settled v, its queue minimum otherwise
+    private double bound(int v) {
+        double d = backward.dist[v];
+        if (d == Double.POSITIVE_INFINITY || backward.heap.contains(v)) {
+            return backwardTop;
+        }
+        return d;
+    }
+
+    // Settle the closest node of one side and relax its edges
+    private void step(Side side, Side other) {
+        int node = side.heap.poll();
+        side.settled++;
+        double d = side.dist[node];
+        side.cursor.reset(node);
+        while (side.cursor.next()) {
+            int neighbor = side.cursor.target();
+            double temp = d + side.cursor.weight();
+            if (side.relax(neighbor, temp, node)) {
+                double through = temp + other.dist[neighbor];
+                if (through < best) {
+                    best = through;
+                    meet = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * The distances, predecessors and queue of one direction. On the
+     * backward side pred[v] is the next node on the way to the destination.
+     */
+    private static final class Side {
+        private final double[] dist;
+        private final int[] hops;
+        private final int[] pred;
+        private final int[] reached;
+        private final IndexedMinHeap heap;
+        private final NeighborCursor cursor;
+        private int reachedCount;
+        private int settled;
+
+        Side(Graph g) {
+            int n = g.nodeCount();
+            dist = new double[n];
+            hops = new int[n];
+            pred = new int[n];
+            reached = new int[n];
+            heap = new IndexedMinHeap(dist, hops);
+            cursor = g.neighborCursor();
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        }
+
+        void start(int v) {
+            touch(v, 0, v);
+            hops[v] = 0;
+            heap.push(v);
+        }
+
+        // Offer the path through from to v with the tie-break of
+        // ShortestPathSearch; true if v got a shorter distance or fewer hops
+        boolean relax(int v, double d, int from) {
+            int h = hops[from] + 1;
+            if (d < dist[v] || (d == dist[v] && h < hops[v])) {
+                touch(v, d, from);
+                hops[v] = h;
+                heap.push(v);
+                return true;
+            }
+            if (d == dist[v] && h == hops[v] && from < pred[v]) {
+                pred[v] = from;
+            }
+            return false;
+        }
+
+        void touch(int v, double d, int from) {
+            if (dist[v] == Double.POSITIVE_INFINITY) {
+                reached[reachedCount++] = v;
+            }
+            dist[v] = d;
+            pred[v] = from;
+        }
+
+        void reset() {
+            for (int i = 0; i < reachedCount; i++) {
+                dist[reached[i]] = Double.POSITIVE_INFINITY;
+            }
+            reachedCount = 0;
+            settled = 0;
+        }
+    }
+}
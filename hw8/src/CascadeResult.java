@@ -0,0 +1,64 @@
+/**
+ * Summary of a batch of independent-cascade simulations: the mean and
+ * variance of the fraction of nodes that end up infected.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class CascadeResult {
+
+    private final long simulations;
+    private final double mean;
+    private final double variance;
+
+
+    /**
+     * @param simulations the number of cascades run
+     * @param mean        the mean infected fraction
+     * @param variance    the sample variance of the infected fraction
+     */
+    public CascadeResult(long simulations, double mean, double variance) {
+        this.simulations = simulations;
+        this.mean = mean;
+        this.variance = variance;
+    }
+
+
+    /**
+     * @return the number of cascades run
+     */
+    public long simulations() {
+        return simulations;
+    }
+
+
+    /**
+     * @return the mean fraction of the nodes infected, comparable to
+     *         transfectionRate
+     */
+    public double mean() {
+        return mean;
+    }
+
+
+    /**
+     * @return the sample variance of the infected fraction
+     */
+    public double variance() {
+        return variance;
+    }
+
+
+    /**
+     * @return the standard error of the mean
+     */
+    public double standardError() {
+        return simulations > 0 ? Math.sqrt(variance / simulations) : 0;
+    }
+
+
+    @Override
+    public String toString() {
+        return String.format("CascadeResult[mean=%.4f, variance=%.6f, stderr=%.6f, simulations=%d]",
+                mean, variance, standardError(), simulations);
+    }
+}
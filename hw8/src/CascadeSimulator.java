@@ -0,0 +1,174 @@
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Monte-Carlo simulation of the independent cascade model. The seeds start
+ * infected, and every newly infected node u gets one chance to infect each
+ * neighbor v, succeeding with the probability exp(-weight) stored on the
+ * edge (u, v). The outbreak is over when a round infects nobody new.
+ *
+ * The graph is copied once into flat arrays holding the probabilities
+ * themselves, so a simulation does no Math.exp and no graph lookups.
+ * Simulations run in fixed-size batches on the common fork-join pool. Each
+ * batch has its own SplittableRandom, split from the seed in batch order,
+ * so results do not depend on the number of threads. Each batch also has
+ * its own visited set packed into a long[], and clears only the words it
+ * touched. The batches share nothing, so throughput grows with the number
+ * of cores.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class CascadeSimulator {
+
+    private static final int BATCH = 64;
+
+    private final int n;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] probability;
+
+
+    /**
+     * @param g the graph, which may change afterwards without affecting
+     *          the simulator
+     */
+    public CascadeSimulator(Graph g) {
+        n = g.nodeCount();
+        offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + g.degree(v);
+        }
+        targets = new int[offsets[n]];
+        probability = new double[offsets[n]];
+        NeighborCursor cursor = g.neighborCursor();
+        for (int v = 0; v < n; v++) {
+            int at = offsets[v];
+            cursor.reset(v);
+            while (cursor.next()) {
+                targets[at] = cursor.target();
+                probability[at] = Math.exp(-cursor.weight());
+                at++;
+            }
+        }
+    }
+
+
+    /**
+     * @return the number of nodes, node 0 included
+     */
+    public int nodeCount() {
+        return n;
+    }
+
+
+    /**
+     * @param seeds       the initially infected nodes
+     * @param simulations the number of cascades to run
+     * @param seed        the random seed
+     * @return the mean and variance of the infected fraction
+     */
+    public CascadeResult simulate(int[] seeds, int simulations, long seed) {
+        return simulate(seeds, simulations, seed, null);
+    }
+
+
+    /**
+     * Simulate as if the removed nodes could neither catch nor pass on the
+     * disease. Removed seeds are dropped.
+     *
+     * @param seeds       the initially infected nodes
+     * @param simulations the number of cascades to run
+     * @param seed        the random seed
+     * @param removed     the nodes to leave out, or null
+     * @return the mean and variance of the infected fraction
+     */
+    public CascadeResult simulate(int[] seeds, int simulations, long seed, BitSet removed) {
+        if (simulations <= 0) {
+            return new CascadeResult(0, 0, 0);
+        }
+        long[] blocked = new long[(n + 63) >>> 6];
+        if (removed != null) {
+            long[] words = removed.toLongArray();
+            System.arraycopy(words, 0, blocked, 0, Math.min(words.length, blocked.length));
+        }
+        int batches = (simulations + BATCH - 1) / BATCH;
+        SplittableRandom master = new SplittableRandom(seed);
+        SplittableRandom[] rngs = new SplittableRandom[batches];
+        for (int b = 0; b < batches; b++) {
+            rngs[b] = master.split();
+        }
+        double[] sum = new double[batches];
+        double[] sumSq = new double[batches];
+        int nodes = Math.max(1, n - 1);
+        IntStream.range(0, batches).parallel().forEach(b -> {
+            long[] visited = new long[blocked.length];
+            int[] queue = new int[n];
+            int runs = Math.min(BATCH, simulations - b * BATCH);
+            for (int r = 0; r < runs; r++) {
+                int infected = cascade(seeds, blocked, visited, queue, rngs[b]);
+                double fraction = (double) infected / nodes;
+                sum[b] += fraction;
+                sumSq[b] += fraction * fraction;
+            }
+        });
+        double total = 0;
+        double totalSq = 0;
+        for (int b = 0; b < batches; b++) {
+            total += sum[b];
+            totalSq += sumSq[b];
+        }
+        double mean = total / simulations;
+        double variance = simulations > 1
+                ? Math.max(0, (totalSq - simulations * mean * mean) / (simulations - 1)) : 0;
+        return new CascadeResult(simulations, mean, variance);
+    }
+
+
+    /**
+     * Run one cascade
+     *
+     * @param seeds   the initially infected nodes
+     * @param blocked nodes that cannot be infected, as bits
+     * @param visited all zero on entry, and again on return
+     * @param queue   scratch space of at least n entries
+     * @param rnd     the random source
+     * @return the number of infected nodes, node 0 not counted
+     */
+    private int cascade(int[] seeds, long[] blocked, long[] visited, int[] queue,
+            SplittableRandom rnd) {
+        int tail = 0;
+        for (int s: seeds) {
+            if (s > 0 && s < n && !get(blocked, s) && !get(visited, s)) {
+                set(visited, s);
+                queue[tail++] = s;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int u = queue[head];
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int v = targets[i];
+                if (!get(visited, v) && !get(blocked, v) && rnd.nextDouble() < probability[i]) {
+                    set(visited, v);
+                    queue[tail++] = v;
+                }
+            }
+        }
+        int infected = 0;
+        for (int i = 0; i < tail; i++) {
+            visited[queue[i] >>> 6] = 0;
+            if (queue[i] != 0) {
+                infected++;
+            }
+        }
+        return infected;
+    }
+
+    private static boolean get(long[] bits, int v) {
+        return (bits[v >>> 6] & (1L << v)) != 0;
+    }
+
+    private static void set(long[] bits, int v) {
+        bits[v >>> 6] |= 1L << v;
+    }
+}
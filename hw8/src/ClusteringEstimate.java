@@ -0,0 +1,101 @@
+/**
+ * A clustering coefficient estimated from sampled neighbor pairs, with a
+ * confidence interval around it.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class ClusteringEstimate {
+
+    private final int node;
+    private final double value;
+    private final double lower;
+    private final double upper;
+    private final long samples;
+    private final boolean exact;
+
+
+    /**
+     * @param node    the node, or 0 for a graph-wide estimate
+     * @param value   the point estimate
+     * @param lower   the lower end of the confidence interval
+     * @param upper   the upper end of the confidence interval
+     * @param samples the number of neighbor pairs checked
+     * @param exact   true if every pair was checked, so value is exact
+     */
+    public ClusteringEstimate(int node, double value, double lower, double upper,
+            long samples, boolean exact) {
+        this.node = node;
+        this.value = value;
+        this.lower = lower;
+        this.upper = upper;
+        this.samples = samples;
+        this.exact = exact;
+    }
+
+
+    /**
+     * @return the node this estimate is for, or 0 for a graph-wide estimate
+     */
+    public int node() {
+        return node;
+    }
+
+
+    /**
+     * @return the estimated clustering coefficient
+     */
+    public double value() {
+        return value;
+    }
+
+
+    /**
+     * @return the lower end of the confidence interval
+     */
+    public double lower() {
+        return lower;
+    }
+
+
+    /**
+     * @return the upper end of the confidence interval
+     */
+    public double upper() {
+        return upper;
+    }
+
+
+    /**
+     * @return the number of neighbor pairs checked
+     */
+    public long samples() {
+        return samples;
+    }
+
+
+    /**
+     * @return true if all neighbor pairs were checked
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+
+    /**
+     * clustCoeffNodes compares coefficients at a precision of 0.01, by
+     * truncating them to whole percents
+     *
+     * @return true if the whole confidence interval truncates to the same
+     *         percent, so the estimate compares exactly like the true value
+     */
+    public boolean meetsPrecision() {
+        return (int) (lower * 100) == (int) (upper * 100);
+    }
+
+
+    @Override
+    public String toString() {
+        return String.format("cc(%d) = %.4f [%.4f, %.4f] from %d pairs%s",
+                node, value, lower, upper, samples, exact ? " (exact)" : "");
+    }
+}
@@ -0,0 +1,203 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates clustering coefficients by checking a bounded number of random
+ * neighbor pairs (wedges) instead of all of them. The number of pairs comes
+ * from Hoeffding's inequality. With k samples, the estimate is within
+ * sqrt(ln(2 / (1 - confidence)) / 2k) of the true value with the given
+ * confidence. A node with no more pairs than that is computed exactly.
+ * Either way a node costs at most about k searches in neighbor rows,
+ * whatever its degree.
+ *
+ * The exact count walks the row of each neighbor u of n with
+ * NeighborCursor.skipTo, jumping from one later neighbor of n to the next.
+ * On a GraphCSR a jump is a galloping search, so u costs
+ * O(d log(deg(u) / d)) even when u is a hub, d being the degree of n. On
+ * a GraphL a jump walks the list, so a lookup or a jump costs up to
+ * deg(u) steps and neighborhoods of hubs are slower on the default
+ * representation.
+ *
+ * Each node is sampled with its own generator derived from the seed and the
+ * node id, so results do not depend on thread scheduling.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class ClusteringSampler {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    // nodes per parallel task in estimateAll, sharing one neighbor buffer
+    private static final int CHUNK = 1024;
+
+    private final Graph graph;
+    private final int samples;
+    private final double logTerm;
+    private final long seed;
+
+
+    /**
+     * @param graph      the graph, not modified while sampling
+     * @param epsilon    the target half width of the confidence interval
+     * @param confidence the probability that the interval holds the true
+     *                   value, between 0 and 1
+     * @param seed       the seed for the random pair choice
+     */
+    public ClusteringSampler(Graph graph, double epsilon, double confidence, long seed) {
+        if (epsilon <= 0 || confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("need epsilon > 0 and 0 < confidence < 1");
+        }
+        this.graph = graph;
+        this.logTerm = Math.log(2 / (1 - confidence));
+        this.samples = (int) Math.min(Integer.MAX_VALUE,
+                Math.ceil(logTerm / (2 * epsilon * epsilon)));
+        this.seed = seed;
+    }
+
+
+    /**
+     * @return the number of pairs sampled per node
+     */
+    public int samplesPerNode() {
+        return samples;
+    }
+
+
+    /**
+     * @param n the node
+     * @return the estimated clustering coefficient of n
+     */
+    public ClusteringEstimate estimate(int n) {
+        return estimate(n, new Scratch(graph));
+    }
+
+
+    /**
+     * @return the estimate of every node, indexed by node id, computed in
+     *         parallel
+     */
+    public ClusteringEstimate[] estimateAll() {
+        ClusteringEstimate[] all = new ClusteringEstimate[graph.nodeCount()];
+        int chunks = (all.length + CHUNK - 1) / CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            Scratch scratch = new Scratch(graph);
+            for (int n = c * CHUNK; n < Math.min(all.length, (c + 1) * CHUNK); n++) {
+                all[n] = estimate(n, scratch);
+            }
+        });
+        return all;
+    }
+
+
+    /**
+     * Estimate the average clustering coefficient over all nodes (nodes of
+     * degree 0 or 1 count as 0) by sampling a random node and then a random
+     * pair of its neighbors
+     *
+     * @return the graph-wide estimate, reported as node 0
+     */
+    public ClusteringEstimate estimateAverage() {
+        int n = graph.nodeCount() - 1;
+        if (n <= 0) {
+            return new ClusteringEstimate(0, 0, 0, 0, 0, true);
+        }
+        SplittableRandom rnd = new SplittableRandom(seed);
+        Scratch scratch = new Scratch(graph);
+        long connected = 0;
+        for (int s = 0; s < samples; s++) {
+            int d = scratch.load(1 + rnd.nextInt(n));
+            if (d <= 1) {
+                continue;
+            }
+            int i = rnd.nextInt(d);
+            int j = rnd.nextInt(d - 1);
+            if (j >= i) {
+                j++;
+            }
+            if (graph.hasEdge(scratch.nb[i], scratch.nb[j])) {
+                connected++;
+            }
+        }
+        return bounded(0, connected, samples);
+    }
+
+    private ClusteringEstimate estimate(int n, Scratch scratch) {
+        if (n <= 0 || n >= graph.nodeCount()) {
+            return new ClusteringEstimate(n, 0, 0, 0, 0, true);
+        }
+        int d = scratch.load(n);
+        if (d <= 1) {
+            return new ClusteringEstimate(n, 0, 0, 0, 0, true);
+        }
+        int[] nb = scratch.nb;
+        long pairs = (long) d * (d - 1) / 2;
+        if (pairs <= samples) {
+            long connected = 0;
+            NeighborCursor cursor = scratch.cursor;
+            for (int i = 0; i < d; i++) {
+                // count the edges from nb[i] to nb[i + 1 ..], jumping between them
+                cursor.reset(nb[i]);
+                int at = -1; // the cursor's target, -1 before the first
+                for (int j = i + 1; j < d; j++) {
+                    if (at < nb[j]) {
+                        if (!cursor.skipTo(nb[j])) {
+                            break;
+                        }
+                        at = cursor.target();
+                    }
+                    if (at == nb[j]) {
+                        connected++;
+                    }
+                }
+            }
+            double cc = connected / (double) pairs;
+            return new ClusteringEstimate(n, cc, cc, cc, pairs, true);
+        }
+        SplittableRandom rnd = new SplittableRandom(seed ^ (n * GOLDEN));
+        long connected = 0;
+        for (int s = 0; s < samples; s++) {
+            int i = rnd.nextInt(d);
+            int j = rnd.nextInt(d - 1);
+            if (j >= i) {
+                j++;
+            }
+            if (graph.hasEdge(nb[i], nb[j])) {
+                connected++;
+            }
+        }
+        return bounded(n, connected, samples);
+    }
+
+    private ClusteringEstimate bounded(int node, long connected, long k) {
+        double p = connected / (double) k;
+        double half = Math.sqrt(logTerm / (2.0 * k));
+        return new ClusteringEstimate(node, p, Math.max(0, p - half), Math.min(1, p + half),
+                k, false);
+    }
+
+    /**
+     * A cursor and a neighbor buffer that grows to the largest degree seen,
+     * reused across the nodes of one thread
+     */
+    private static final class Scratch {
+        private final NeighborCursor cursor;
+        private int[] nb = new int[16];
+
+        Scratch(Graph g) {
+            cursor = g.neighborCursor();
+        }
+
+        // Copy the neighbors of v into nb and return how many there are
+        int load(int v) {
+            int d = 0;
+            cursor.reset(v);
+            while (cursor.next()) {
+                if (d == nb.length) {
+                    nb = Arrays.copyOf(nb, 2 * d);
+                }
+                nb[d++] = cursor.target();
+            }
+            return d;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+
+/**
+ * Keeps the degree of every node together with one bucket per degree
+ * holding the nodes that have it. Buckets are doubly linked lists threaded
+ * through two int arrays indexed by node, so moving a node to the next
+ * bucket when an edge is added or removed is O(1) and allocates nothing.
+ * Listing the nodes of one degree costs time proportional to the answer.
+ *
+ * A node moved into a bucket goes to its front, which keeps the bucket in
+ * ascending order only if the node is smaller than the old front. A bucket
+ * that lost its order is sorted and relinked the next time it is listed,
+ * so repeated listings of an unchanged bucket never sort again. Listing is
+ * synchronized for that reason, so readers of a published graph can list
+ * buckets from several threads.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class DegreeIndex {
+
+    private static final int NONE = -1;
+
+    private final int[] degree;
+    private final int[] next;
+    private final int[] prev;
+    private int[] head;
+    private int[] size;
+    // false once a bucket may be out of ascending order
+    private boolean[] ordered;
+    private int maxDegree;
+
+
+    /**
+     * @param n the number of nodes, all starting with degree 0
+     */
+    public DegreeIndex(int n) {
+        this(new int[n]);
+    }
+
+
+    /**
+     * Index nodes whose degrees are already known. The array is used as is
+     * and kept up to date by increment and decrement, so the caller can
+     * keep reading degrees from it.
+     *
+     * @param degree the degree of every node, indexed by node id
+     */
+    public DegreeIndex(int[] degree) {
+        this.degree = degree;
+        int n = degree.length;
+        next = new int[n];
+        prev = new int[n];
+        int max = 0;
+        for (int d: degree) {
+            max = Math.max(max, d);
+        }
+        head = new int[max + 2];
+        size = new int[max + 2];
+        ordered = new boolean[max + 2];
+        Arrays.fill(head, NONE);
+        Arrays.fill(ordered, true);
+        // insert backwards so every bucket starts out in ascending order
+        for (int v = n - 1; v >= 0; v--) {
+            link(v, degree[v]);
+        }
+        maxDegree = max;
+    }
+
+
+    /**
+     * @param v the node
+     * @return the degree of v
+     */
+    public int degree(int v) {
+        return degree[v];
+    }
+
+
+    /**
+     * @return the highest degree of any node
+     */
+    public int maxDegree() {
+        // decrement leaves maxDegree as is, so step down past emptied
+        // buckets and remember where that stopped for the next call
+        int d = maxDegree;
+        while (d > 0 && size[d] == 0) {
+            d--;
+        }
+        maxDegree = d;
+        return d;
+    }
+
+
+    /**
+     * @param d the degree
+     * @return the number of nodes with degree d
+     */
+    public int count(int d) {
+        if (d < 0 || d >= size.length) {
+            return 0;
+        }
+        return size[d];
+    }
+
+
+    /**
+     * @param d the degree
+     * @return the nodes with degree d in ascending order
+     */
+    public synchronized int[] nodes(int d) {
+        int[] nodes = new int[count(d)];
+        if (nodes.length == 0) {
+            return nodes;
+        }
+        int i = 0;
+        for (int v = head[d]; v != NONE; v = next[v]) {
+            nodes[i++] = v;
+        }
+        if (!ordered[d]) {
+            Arrays.sort(nodes);
+            relink(d, nodes);
+        }
+        return nodes;
+    }
+
+
+    /**
+     * @return the number of nodes of every degree, indexed by degree, up to
+     *         the highest degree
+     */
+    public int[] histogram() {
+        return Arrays.copyOf(size, maxDegree() + 1);
+    }
+
+
+    /**
+     * Record one more edge out of v
+     *
+     * @param v the node
+     */
+    public void increment(int v) {
+        int d = degree[v];
+        unlink(v, d);
+        if (d + 1 >= head.length) {
+            int cap = Math.max(d + 2, head.length * 2);
+            int old = head.length;
+            head = Arrays.copyOf(head, cap);
+            size = Arrays.copyOf(size, cap);
+            ordered = Arrays.copyOf(ordered, cap);
+            Arrays.fill(head, old, cap, NONE);
+            Arrays.fill(ordered, old, cap, true);
+        }
+        degree[v] = d + 1;
+        link(v, d + 1);
+        maxDegree = Math.max(maxDegree, d + 1);
+    }
+
+
+    /**
+     * Record one edge less out of v
+     *
+     * @param v the node
+     */
+    public void decrement(int v) {
+        int d = degree[v];
+        unlink(v, d);
+        degree[v] = d - 1;
+        link(v, d - 1);
+    }
+
+
+    private void link(int v, int d) {
+        if (head[d] != NONE && head[d] < v) {
+            ordered[d] = false;
+        }
+        prev[v] = NONE;
+        next[v] = head[d];
+        if (head[d] != NONE) {
+            prev[head[d]] = v;
+        }
+        head[d] = v;
+        size[d]++;
+    }
+
+    private void unlink(int v, int d) {
+        if (prev[v] != NONE) {
+            next[prev[v]] = next[v];
+        } else {
+            head[d] = next[v];
+        }
+        if (next[v] != NONE) {
+            prev[next[v]] = prev[v];
+        }
+        size[d]--;
+    }
+
+    // Rebuild bucket d from its nodes in ascending order
+    private void relink(int d, int[] nodes) {
+        int last = NONE;
+        for (int v: nodes) {
+            prev[v] = last;
+            if (last == NONE) {
+                head[d] = v;
+            } else {
+                next[last] = v;
+            }
+            last = v;
+        }
+        next[last] = NONE;
+        ordered[d] = true;
+    }
+}
@@ -0,0 +1,498 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Delta-stepping: a single-source search that relaxes many nodes at once.
+ * Nodes are kept in buckets of distance width delta instead of a heap.
+ * The lowest bucket is processed in rounds. Each round relaxes the light
+ * edges (weight at most delta) of every node in the bucket in parallel, and
+ * nodes that improve into the same bucket form the next round. When the
+ * bucket stays empty, its heavy edges are relaxed once. Heavy edges always
+ * lead to a later bucket.
+ *
+ * Distances are doubles stored as their bits in an AtomicLongArray. For
+ * non-negative doubles the bits order like the values, so an improvement
+ * is a compare-and-set loop on a long. Each task collects the nodes it
+ * improved into its own list; the lists are merged after each round.
+ *
+ * A smaller delta wastes less work on nodes that improve again later but
+ * gives smaller rounds with less parallelism. delta near the typical edge
+ * weight is a good start. delta = infinity is a parallel Bellman-Ford.
+ *
+ * Every final distance is the minimum over the final distances of the
+ * predecessors plus the edge weight, as in Dijkstra, so both searches find
+ * the same distances bit for bit. Predecessors are not tracked during the
+ * search. The first call to predecessor after a search recovers them with
+ * the tie-break of ShortestPathSearch, by a level-by-level parallel
+ * breadth-first search from the source over the tight edges, those with
+ * dist[u] + w(u, v) equal to dist[v]. The level of v is the fewest hops of
+ * a best path to v, and pred[v] is the lowest id u one level up with a
+ * tight edge to v, which is exactly the predecessor ShortestPathSearch
+ * picks, ties included.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class DeltaSteppingSearch implements SingleSourceSearch {
+
+    // rounds smaller than this run on the calling thread
+    private static final int PARALLEL_MIN = 512;
+    private static final long INFINITY = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+    private final Graph graph;
+    private final BitSet removed;
+    private final double delta;
+    private final AtomicLongArray dist;
+    // the predecessor plus one, so that 0 can mean not recovered yet
+    private final AtomicIntegerArray pred;
+    // hops of the best path plus one while recovering predecessors, 0 unset
+    private final AtomicIntegerArray level;
+    private final int[] reached;
+    // mark[v] == stamp when v was already taken in the current merge
+    private final int[] mark;
+    private final int[] settledMark;
+    private int stamp;
+    private int runs;
+    private int reachedCount;
+    private int settledCount;
+    private int prunedRelaxations;
+    private int source;
+    private boolean predecessorsKnown;
+
+
+    /**
+     * @param graph the graph to search
+     * @param delta the bucket width, greater than 0
+     */
+    public DeltaSteppingSearch(Graph graph, double delta) {
+        this(graph, null, delta);
+    }
+
+
+    /**
+     * @param graph   the graph to search
+     * @param removed nodes to treat as disconnected, or null for none; the
+     *                set must not change while the search is in use
+     * @param delta   the bucket width, greater than 0
+     */
+    public DeltaSteppingSearch(Graph graph, BitSet removed, double delta) {
+        if (!(delta > 0)) {
+            throw new IllegalArgumentException("bucket width must be > 0, was " + delta);
+        }
+        int n = graph.nodeCount();
+        this.graph = graph;
+        this.removed = removed;
+        this.delta = delta;
+        this.dist = new AtomicLongArray(n);
+        this.pred = new AtomicIntegerArray(n);
+        this.level = new AtomicIntegerArray(n);
+        this.reached = new int[n];
+        this.mark = new int[n];
+        this.settledMark = new int[n];
+        for (int v = 0; v < n; v++) {
+            dist.set(v, INFINITY);
+        }
+    }
+
+
+    /**
+     * @return the bucket width
+     */
+    public double bucketWidth() {
+        return delta;
+    }
+
+
+    /**
+     * @return the graph this search runs on
+     */
+    @Override
+    public Graph graph() {
+        return graph;
+    }
+
+
+    /**
+     * Compute the distance from source to every reachable node
+     *
+     * @param source the start node
+     */
+    @Override
+    public void run(int source) {
+        run(source, -1);
+    }
+
+
+    /**
+     * Compute distances from source, stopping once the bucket of
+     * destination is done
+     *
+     * @param source      the start node
+     * @param destination the node to stop at, or -1 to search everything
+     */
+    @Override
+    public void run(int source, int destination) {
+        run(source, destination, Double.POSITIVE_INFINITY);
+    }
+
+
+    /**
+     * Compute distances from source, dropping every relaxation past
+     * maxDistance
+     *
+     * @param source      the start node
+     * @param destination the node to stop at, or -1 to search everything
+     * @param maxDistance the longest distance worth exploring
+     */
+    @Override
+    public void run(int source, int destination, double maxDistance) {
+        reset();
+        this.source = source;
+        if (removed != null && removed.get(source)) {
+            return;
+        }
+        dist.set(source, Double.doubleToRawLongBits(0));
+        reached[reachedCount++] = source;
+        TreeMap<Long, IntList> buckets = new TreeMap<>();
+        buckets.computeIfAbsent(0L, b -> new IntList()).add(source);
+        int run = ++runs;
+        while (!buckets.isEmpty()) {
+            long b = buckets.firstKey();
+            IntList frontier = take(buckets.remove(b), b);
+            IntList settled = new IntList();
+            while (frontier.size > 0) {
+                for (int i = 0; i < frontier.size; i++) {
+                    int v = frontier.items[i];
+                    if (settledMark[v] != run) {
+                        settledMark[v] = run;
+                        settled.add(v);
+                    }
+                }
+                IntList improved = relax(frontier, true, maxDistance);
+                frontier = new IntList();
+                nextStamp();
+                for (int i = 0; i < improved.size; i++) {
+                    int v = improved.items[i];
+                    if (mark[v] == stamp) {
+                        continue;
+                    }
+                    mark[v] = stamp;
+                    long bv = bucket(v);
+                    if (bv == b) {
+                        frontier.add(v);
+                    } else {
+                        buckets.computeIfAbsent(bv, k -> new IntList()).add(v);
+                    }
+                }
+            }
+            settledCount += settled.size;
+            IntList improved = relax(settled, false, maxDistance);
+            for (int i = 0; i < improved.size; i++) {
+                int v = improved.items[i];
+                buckets.computeIfAbsent(bucket(v), k -> new IntList()).add(v);
+            }
+            if (destination >= 0 && reached(destination) && bucket(destination) <= b) {
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * @return the number of nodes whose bucket the last search finished
+     */
+    @Override
+    public int settledCount() {
+        return settledCount;
+    }
+
+
+    /**
+     * @return the number of relaxations the last search dropped because
+     *         they went past maxDistance
+     */
+    @Override
+    public int prunedRelaxations() {
+        return prunedRelaxations;
+    }
+
+
+    /**
+     * @param v the node
+     * @return the -log probability of the best path to v, or positive
+     *         infinity if the last search did not reach v
+     */
+    @Override
+    public double distance(int v) {
+        return Double.longBitsToDouble(dist.get(v));
+    }
+
+
+    /**
+     * @param v the node
+     * @return the node before v on the best path, or 0 for the source and
+     *         for nodes the last search did not reach; recovered for every
+     *         node on the first call after a search
+     */
+    @Override
+    public int predecessor(int v) {
+        if (!predecessorsKnown) {
+            recoverPredecessors();
+        }
+        int p = pred.get(v);
+        return p == 0 ? 0 : p - 1;
+    }
+
+
+    /**
+     * @param v the node
+     * @return true if the last search found a path to v
+     */
+    @Override
+    public boolean reached(int v) {
+        return dist.get(v) != INFINITY;
+    }
+
+
+    /**
+     * @return the number of nodes the last search found a path to
+     */
+    @Override
+    public int reachedCount() {
+        return reachedCount;
+    }
+
+
+    /**
+     * @param i index between 0 and reachedCount() - 1
+     * @return the i-th node the last search found a path to, in no
+     *         particular order
+     */
+    @Override
+    public int reachedNode(int i) {
+        return reached[i];
+    }
+
+    /**
+     * Keep the nodes of a bucket list that still belong to bucket b, once
+     * each. A node that improved into a lower bucket since it was added is
+     * dropped here.
+     */
+    private IntList take(IntList list, long b) {
+        IntList out = new IntList();
+        nextStamp();
+        for (int i = 0; i < list.size; i++) {
+            int v = list.items[i];
+            if (mark[v] != stamp && bucket(v) == b) {
+                mark[v] = stamp;
+                out.add(v);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Relax the light or the heavy edges of the given nodes, in parallel
+     * chunks when there are enough of them
+     *
+     * @return every node whose distance went down, possibly more than once
+     */
+    private IntList relax(IntList nodes, boolean light, double maxDistance) {
+        if (nodes.size < PARALLEL_MIN) {
+            Chunk chunk = new Chunk();
+            chunk.relax(nodes.items, 0, nodes.size, light, maxDistance);
+            return merge(new Chunk[] {chunk});
+        }
+        int size = chunkSize(nodes.size);
+        int chunks = (nodes.size + size - 1) / size;
+        Chunk[] results = new Chunk[chunks];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            Chunk chunk = new Chunk();
+            int to = Math.min(nodes.size, (c + 1) * size);
+            chunk.relax(nodes.items, c * size, to, light, maxDistance);
+            results[c] = chunk;
+        });
+        return merge(results);
+    }
+
+    private IntList merge(Chunk[] chunks) {
+        IntList improved = new IntList();
+        for (Chunk chunk: chunks) {
+            for (int i = 0; i < chunk.first.size; i++) {
+                reached[reachedCount++] = chunk.first.items[i];
+            }
+            improved.addAll(chunk.improved);
+            prunedRelaxations += chunk.pruned;
+        }
+        return improved;
+    }
+
+    private long bucket(int v) {
+        return (long) (distance(v) / delta);
+    }
+
+    private static int chunkSize(int nodes) {
+        return Math.max(PARALLEL_MIN / 4, nodes / (4 * ForkJoinPool.getCommonPoolParallelism()));
+    }
+
+    /**
+     * Breadth-first search over the tight edges, one level at a time. A
+     * node joins the next level through a compare-and-set on its level, and
+     * every node of the current level with a tight edge to it lowers its
+     * predecessor with a compare-and-set loop, so the lowest one is kept.
+     */
+    private void recoverPredecessors() {
+        predecessorsKnown = true;
+        if (!reached(source)) {
+            return;
+        }
+        level.set(source, 1);
+        IntList frontier = new IntList();
+        frontier.add(source);
+        for (int depth = 2; frontier.size > 0; depth++) {
+            IntList current = frontier;
+            int next = depth;
+            int size = current.size < PARALLEL_MIN ? current.size : chunkSize(current.size);
+            int chunks = (current.size + size - 1) / size;
+            IntList[] found = new IntList[chunks];
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                found[c] = tightStep(current.items, c * size,
+                        Math.min(current.size, (c + 1) * size), next);
+            });
+            frontier = new IntList();
+            for (IntList list: found) {
+                frontier.addAll(list);
+            }
+        }
+    }
+
+    /**
+     * Follow the tight edges of nodes[from..to), which are all on the level
+     * before depth
+     *
+     * @return the nodes this call moved onto level depth
+     */
+    private IntList tightStep(int[] nodes, int from, int to, int depth) {
+        IntList joined = new IntList();
+        NeighborCursor cursor = graph.neighborCursor();
+        for (int i = from; i < to; i++) {
+            int u = nodes[i];
+            double du = distance(u);
+            cursor.reset(u);
+            while (cursor.next()) {
+                int v = cursor.target();
+                if (du + cursor.weight() != distance(v)) {
+                    continue;
+                }
+                if (level.get(v) == 0 && level.compareAndSet(v, 0, depth)) {
+                    joined.add(v);
+                }
+                if (level.get(v) != depth) {
+                    continue; // reached on a shorter level
+                }
+                int current = pred.get(v);
+                int proposed = u + 1;
+                while ((current == 0 || proposed < current)
+                        && !pred.compareAndSet(v, current, proposed)) {
+                    current = pred.get(v);
+                }
+            }
+        }
+        return joined;
+    }
+
+    private void nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < reachedCount; i++) {
+            dist.set(reached[i], INFINITY);
+            pred.set(reached[i], 0);
+            level.set(reached[i], 0);
+        }
+        if (runs == Integer.MAX_VALUE) {
+            Arrays.fill(settledMark, 0);
+            runs = 0;
+        }
+        reachedCount = 0;
+        settledCount = 0;
+        prunedRelaxations = 0;
+        predecessorsKnown = false;
+    }
+
+    /**
+     * The output of one parallel task: the nodes it improved, the ones it
+     * reached for the first time, and how many relaxations it pruned
+     */
+    private final class Chunk {
+        private final IntList improved = new IntList();
+        private final IntList first = new IntList();
+        private int pruned;
+
+        void relax(int[] nodes, int from, int to, boolean light, double maxDistance) {
+            NeighborCursor cursor = graph.neighborCursor();
+            for (int i = from; i < to; i++) {
+                int u = nodes[i];
+                double du = distance(u);
+                cursor.reset(u);
+                while (cursor.next()) {
+                    double w = cursor.weight();
+                    if ((w <= delta) != light) {
+                        continue;
+                    }
+                    int v = cursor.target();
+                    double temp = du + w;
+                    long bits = Double.doubleToRawLongBits(temp);
+                    long current = dist.get(v);
+                    if (bits >= current || (removed != null && removed.get(v))) {
+                        continue;
+                    }
+                    if (temp > maxDistance) {
+                        pruned++;
+                        continue;
+                    }
+                    while (bits < current && !dist.compareAndSet(v, current, bits)) {
+                        current = dist.get(v);
+                    }
+                    if (bits < current) {
+                        improved.add(v);
+                        if (current == INFINITY) {
+                            first.add(v);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A growable list of ints
+     */
+    private static final class IntList {
+        private int[] items = new int[16];
+        private int size;
+
+        void add(int v) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = v;
+        }
+
+        void addAll(IntList other) {
+            if (size + other.size > items.length) {
+                items = Arrays.copyOf(items, Math.max(size + other.size, items.length * 2));
+            }
+            System.arraycopy(other.items, 0, items, size, other.size);
+            size += other.size;
+        }
+    }
+}
@@ -90,4 +90,39 @@ public interface Graph {
      */
     int[] neighbors(int v);
 
+
+    /**
+     * Returns the number of neighbors of v without building the array
+     * 
+     * @param v - the node
+     * @return the degree of v
+     */
+    int degree(int v);
+
+
+    /**
+     * Returns the nodes with exactly d neighbors, in ascending order
+     * 
+     * @param d - the degree
+     * @return the array of nodes with degree d
+     */
+    int[] nodesWithDegree(int d);
+
+
+    /**
+     * Returns how many nodes have each degree
+     * 
+     * @return the node counts indexed by degree, up to the highest degree
+     */
+    int[] degreeHistogram();
+
+
+    /**
+     * Returns a cursor that walks the neighbors of a node with their edge
+     * weights without allocating an array per call
+     * 
+     * @return a new cursor, not yet positioned on any node
+     */
+    NeighborCursor neighborCursor();
+
 }
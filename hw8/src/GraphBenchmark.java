@@ -0,0 +1,74 @@
+import java.util.Collections;
+
+/**
+ * Compares the memory footprint and query latency of the GraphL and GraphCSR
+ * representations on the same .mtx input. The removal column vaccinates one
+ * neighbor of the highest-degree node per round, the case where copying
+ * the graph edge by edge is quadratic in the hub degree.
+ *
+ * Usage: java GraphBenchmark [file.mtx] [rounds]
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class GraphBenchmark {
+
+    public static void main(String[] args) {
+        String path = args.length > 0 ? args[0] : "datasets/test1.mtx";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        System.out.printf("%-10s %12s %12s %14s %14s %14s%n",
+                "graph", "load ms", "heap MB", "scan ms", "rate ms", "remove ms");
+        run("GraphL", false, path, rounds);
+        run("GraphCSR", true, path, rounds);
+    }
+
+    private static void run(String name, boolean compact, String path, int rounds) {
+        long before = usedHeap();
+        long start = System.nanoTime();
+        InformationSpread inf = new InformationSpread(compact);
+        int n = inf.loadGraphFromDataSet(path);
+        double loadMs = (System.nanoTime() - start) / 1e6;
+        double heapMb = (usedHeap() - before) / (1024.0 * 1024.0);
+
+        long checksum = 0;
+        double scanMs = Double.MAX_VALUE;
+        double rateMs = Double.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            start = System.nanoTime();
+            for (int v = 1; v <= n; v++) {
+                for (int w: inf.getNeighbors(v)) {
+                    checksum += w;
+                }
+            }
+            scanMs = Math.min(scanMs, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            checksum += (long) (inf.transfectionRate(1, 0.1) * n);
+            rateMs = Math.min(rateMs, (System.nanoTime() - start) / 1e6);
+        }
+
+        int hub = 1;
+        for (int v = 1; v <= n; v++) {
+            if (inf.getNeighbors(v).length > inf.getNeighbors(hub).length) {
+                hub = v;
+            }
+        }
+        int[] leaves = inf.getNeighbors(hub);
+        double removeMs = Double.MAX_VALUE;
+        for (int r = 0; r < rounds && r < leaves.length; r++) {
+            start = System.nanoTime();
+            inf.removeVaccinated(Collections.singletonList(leaves[r]));
+            removeMs = Math.min(removeMs, (System.nanoTime() - start) / 1e6);
+        }
+        checksum += inf.getNeighbors(hub).length;
+        System.out.printf("%-10s %12.1f %12.1f %14.3f %14.3f %14.3f   (checksum %d)%n",
+                name, loadMs, heapMb, scanMs, rateMs, removeMs, checksum);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
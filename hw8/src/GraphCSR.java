@@ -0,0 +1,525 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compressed sparse row implementation of the Graph interface. The neighbors
+ * of v are stored sorted in targets[offsets[v] .. offsets[v] + degrees[v]),
+ * with the matching edge weights in the parallel weights array, so a neighbor
+ * scan is a sequential walk over two primitive arrays and degree is O(1).
+ * A {@link DegreeIndex} sharing the degrees array answers which nodes have
+ * a given degree.
+ *
+ * Large graphs should be created with a {@link Builder} that collects all
+ * edges first and lays the rows out in one pass. addEdge is supported but
+ * has to grow the arrays whenever a row is full.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class GraphCSR implements Graph {
+
+    private int[] offsets;
+    private int[] degrees;
+    private DegreeIndex index;
+    private int[] targets;
+    private double[] weights;
+    private double[] nodeValues;
+    private int numEdge;
+
+
+    /**
+     * Empty no argument constructor
+     */
+    public GraphCSR() {
+        // Call init or use a Builder
+    }
+
+
+    /**
+     * Wrap already laid out rows, used by the Builder
+     */
+    private GraphCSR(int[] offsets, int[] degrees, int[] targets, double[] weights, int numEdge) {
+        this.offsets = offsets;
+        this.degrees = degrees;
+        this.targets = targets;
+        this.weights = weights;
+        this.nodeValues = new double[degrees.length];
+        this.numEdge = numEdge;
+        this.index = new DegreeIndex(degrees);
+    }
+
+
+    /**
+     * Wrap rows that are stored back to back, so row v is exactly
+     * targets[offsets[v] .. offsets[v + 1])
+     *
+     * @param offsets the n + 1 row boundaries
+     * @param targets the sorted neighbors of every row
+     * @param weights the edge weights, parallel to targets
+     * @return the graph using the given arrays
+     */
+    static GraphCSR fromRows(int[] offsets, int[] targets, double[] weights) {
+        int n = offsets.length - 1;
+        int[] degrees = new int[n];
+        for (int v = 0; v < n; v++) {
+            degrees[v] = offsets[v + 1] - offsets[v];
+        }
+        return new GraphCSR(offsets, degrees, targets, weights, offsets[n]);
+    }
+
+
+    /**
+     * Copy g without the edges touching the nodes in removed. The cursor of
+     * g gives every row in ascending order, so the rows are counted in one
+     * pass and filled in a second, with no sorting.
+     *
+     * @param g       the graph to copy
+     * @param removed the nodes to leave disconnected, or null for none
+     * @return a new GraphCSR with the remaining edges of g
+     */
+    public static GraphCSR copyOf(Graph g, BitSet removed) {
+        int n = g.nodeCount();
+        NeighborCursor cursor = g.neighborCursor();
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            int kept = 0;
+            if (removed == null || !removed.get(v)) {
+                cursor.reset(v);
+                while (cursor.next()) {
+                    if (keeps(cursor, removed)) {
+                        kept++;
+                    }
+                }
+            }
+            offsets[v + 1] = offsets[v] + kept;
+        }
+        int[] targets = new int[offsets[n]];
+        double[] weights = new double[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            if (offsets[v + 1] == offsets[v]) {
+                continue;
+            }
+            int pos = offsets[v];
+            cursor.reset(v);
+            while (cursor.next()) {
+                if (keeps(cursor, removed)) {
+                    targets[pos] = cursor.target();
+                    weights[pos] = cursor.weight();
+                    pos++;
+                }
+            }
+        }
+        return fromRows(offsets, targets, weights);
+    }
+
+
+    // True if copyOf keeps the edge under cursor: stored and not removed
+    private static boolean keeps(NeighborCursor cursor, BitSet removed) {
+        return cursor.weight() != 0 && (removed == null || !removed.get(cursor.target()));
+    }
+
+
+    // Initialize the graph with n vertices
+    public void init(int n) {
+        offsets = new int[n + 1];
+        degrees = new int[n];
+        targets = new int[0];
+        weights = new double[0];
+        nodeValues = new double[n];
+        numEdge = 0;
+        index = new DegreeIndex(degrees);
+    }
+
+
+    // Return the number of vertices
+    public int nodeCount() {
+        return degrees.length;
+    }
+
+
+    // Return the current number of edges
+    public int edgeCount() {
+        return numEdge;
+    }
+
+
+    // Get the value of node with index v
+    public double getValue(int v) {
+        return nodeValues[v];
+    }
+
+
+    // Set the value of node with index v
+    public void setValue(int v, double val) {
+        nodeValues[v] = val;
+    }
+
+
+    // Returns the number of neighbors of v
+    public int degree(int v) {
+        return degrees[v];
+    }
+
+
+    // Returns the nodes with degree d in ascending order
+    public int[] nodesWithDegree(int d) {
+        return index.nodes(d);
+    }
+
+
+    // Returns the number of nodes of every degree
+    public int[] degreeHistogram() {
+        return index.histogram();
+    }
+
+
+    // Return the position of w in v's row, or -(insertion point) - 1
+    private int find(int v, int w) {
+        return Arrays.binarySearch(targets, offsets[v], offsets[v] + degrees[v], w);
+    }
+
+
+    // Adds a new edge from node v to node w with weight wgt
+    public void addEdge(int v, int w, double wgt) {
+        if (wgt == 0) {
+            return; // Can't store weight of 0
+        }
+        int pos = find(v, w);
+        if (pos >= 0) {
+            weights[pos] = wgt;
+            return;
+        }
+        if (offsets[v] + degrees[v] == offsets[v + 1]) {
+            grow(v);
+            pos = find(v, w);
+        }
+        pos = -pos - 1;
+        int end = offsets[v] + degrees[v];
+        System.arraycopy(targets, pos, targets, pos + 1, end - pos);
+        System.arraycopy(weights, pos, weights, pos + 1, end - pos);
+        targets[pos] = w;
+        weights[pos] = wgt;
+        index.increment(v);
+        numEdge++;
+    }
+
+
+    // Double the capacity of row v, shifting every later row
+    private void grow(int v) {
+        int extra = Math.max(4, offsets[v + 1] - offsets[v]);
+        int[] newTargets = new int[targets.length + extra];
+        double[] newWeights = new double[weights.length + extra];
+        int split = offsets[v + 1];
+        System.arraycopy(targets, 0, newTargets, 0, split);
+        System.arraycopy(weights, 0, newWeights, 0, split);
+        System.arraycopy(targets, split, newTargets, split + extra, targets.length - split);
+        System.arraycopy(weights, split, newWeights, split + extra, weights.length - split);
+        for (int i = v + 1; i < offsets.length; i++) {
+            offsets[i] += extra;
+        }
+        targets = newTargets;
+        weights = newWeights;
+    }
+
+
+    // Get the weight value for an edge
+    public double weight(int v, int w) {
+        int pos = find(v, w);
+        if (pos < 0) {
+            return 0;
+        }
+        return weights[pos];
+    }
+
+
+    // Removes the edge from the graph.
+    public void removeEdge(int v, int w) {
+        int pos = find(v, w);
+        if (pos < 0) {
+            return;
+        }
+        int end = offsets[v] + degrees[v];
+        System.arraycopy(targets, pos + 1, targets, pos, end - pos - 1);
+        System.arraycopy(weights, pos + 1, weights, pos, end - pos - 1);
+        index.decrement(v);
+        numEdge--;
+    }
+
+
+    // Returns true iff the graph has the edge
+    public boolean hasEdge(int v, int w) {
+        return find(v, w) >= 0;
+    }
+
+
+    // Returns an array containing the indicies of the neighbors of v
+    public int[] neighbors(int v) {
+        return Arrays.copyOfRange(targets, offsets[v], offsets[v] + degrees[v]);
+    }
+
+
+    // Returns a cursor over the rows
+    public NeighborCursor neighborCursor() {
+        return new RowCursor();
+    }
+
+
+    /**
+     * Steps through one row of the targets and weights arrays
+     */
+    private class RowCursor implements NeighborCursor {
+        private int pos;
+        private int end;
+
+        public void reset(int v) {
+            pos = offsets[v] - 1;
+            end = offsets[v] + degrees[v];
+        }
+
+        public boolean next() {
+            return ++pos < end;
+        }
+
+        public int target() {
+            return targets[pos];
+        }
+
+        public double weight() {
+            return weights[pos];
+        }
+
+        // Galloping search from the next position, O(log of the distance moved)
+        @Override
+        public boolean skipTo(int w) {
+            int lo = pos + 1;
+            int hi = lo;
+            int step = 1;
+            while (hi < end && targets[hi] < w) {
+                lo = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(targets, lo, Math.min(hi, end), w);
+            pos = found >= 0 ? found : -found - 1;
+            return pos < end;
+        }
+    }
+
+
+    /**
+     * Collects directed edges into primitive arrays and lays them out as a
+     * GraphCSR in a single pass. Rows come out sorted by target; if the same
+     * (v, w) pair is added more than once the last weight wins, matching
+     * repeated calls to addEdge.
+     */
+    public static class Builder {
+
+        private final int n;
+        private int[] from;
+        private int[] to;
+        private double[] wgts;
+        private int size;
+
+
+        /**
+         * @param n the number of vertices
+         */
+        public Builder(int n) {
+            this(n, 16);
+        }
+
+
+        /**
+         * @param n            the number of vertices
+         * @param expectedEdges the number of directed edges to reserve room for
+         */
+        public Builder(int n, int expectedEdges) {
+            this.n = n;
+            int cap = Math.max(16, expectedEdges);
+            from = new int[cap];
+            to = new int[cap];
+            wgts = new double[cap];
+        }
+
+
+        /**
+         * @param g the graph to copy
+         * @return a builder holding every edge of g, row by row
+         */
+        public static Builder from(Graph g) {
+            Builder builder = new Builder(g.nodeCount(), g.edgeCount());
+            NeighborCursor cursor = g.neighborCursor();
+            for (int v = 0; v < g.nodeCount(); v++) {
+                cursor.reset(v);
+                while (cursor.next()) {
+                    builder.addEdge(v, cursor.target(), cursor.weight());
+                }
+            }
+            return builder;
+        }
+
+
+        /**
+         * @param g the graph to reverse
+         * @return a builder holding an edge (w, v) for every edge (v, w) of
+         *         g, with the same weight
+         */
+        public static Builder reversed(Graph g) {
+            Builder builder = new Builder(g.nodeCount(), g.edgeCount());
+            NeighborCursor cursor = g.neighborCursor();
+            for (int v = 0; v < g.nodeCount(); v++) {
+                cursor.reset(v);
+                while (cursor.next()) {
+                    builder.addEdge(cursor.target(), v, cursor.weight());
+                }
+            }
+            return builder;
+        }
+
+
+        /**
+         * @return the number of vertices of the graph being built
+         */
+        public int nodeCount() {
+            return n;
+        }
+
+
+        /**
+         * @return the number of directed edges added so far
+         */
+        public int size() {
+            return size;
+        }
+
+
+        /**
+         * Adds a directed edge from v to w with weight wgt
+         *
+         * @param v   - the from node
+         * @param w   - the to node
+         * @param wgt - the weight of the edge
+         */
+        public void addEdge(int v, int w, double wgt) {
+            if (wgt == 0) {
+                return; // Can't store weight of 0
+            }
+            if (v < 0 || v >= n || w < 0 || w >= n) {
+                throw new IndexOutOfBoundsException("edge (" + v + ", " + w + ") outside " + n
+                        + " nodes");
+            }
+            ensureCapacity(size + 1);
+            from[size] = v;
+            to[size] = w;
+            wgts[size] = wgt;
+            size++;
+        }
+
+
+        /**
+         * Appends count directed edges held in parallel arrays, in order
+         *
+         * @param vs    - the from nodes
+         * @param ws    - the to nodes
+         * @param wgt   - the weights of the edges
+         * @param count - the number of edges to take from the arrays
+         */
+        public void addEdges(int[] vs, int[] ws, double[] wgt, int count) {
+            ensureCapacity(size + count);
+            for (int i = 0; i < count; i++) {
+                addEdge(vs[i], ws[i], wgt[i]);
+            }
+        }
+
+
+        private void ensureCapacity(int needed) {
+            if (needed > from.length) {
+                int cap = Math.max(needed, from.length * 2);
+                from = Arrays.copyOf(from, cap);
+                to = Arrays.copyOf(to, cap);
+                wgts = Arrays.copyOf(wgts, cap);
+            }
+        }
+
+
+        /**
+         * Replays the collected edges into g through init and addEdge
+         *
+         * @param g the graph to fill
+         * @return g
+         */
+        public Graph addTo(Graph g) {
+            g.init(n);
+            for (int i = 0; i < size; i++) {
+                g.addEdge(from[i], to[i], wgts[i]);
+            }
+            return g;
+        }
+
+
+        /**
+         * Lays the edges out with a stable counting sort by target followed by
+         * a stable counting sort by source, so each row ends up ordered by
+         * target without any comparisons.
+         *
+         * @return the compressed graph
+         */
+        public GraphCSR build() {
+            // pass 1: order edge ids by target
+            int[] count = new int[n + 1];
+            for (int i = 0; i < size; i++) {
+                count[to[i] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                count[i + 1] += count[i];
+            }
+            int[] byTarget = new int[size];
+            for (int i = 0; i < size; i++) {
+                byTarget[count[to[i]]++] = i;
+            }
+
+            // pass 2: stable scatter into rows by source
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] next = Arrays.copyOf(offsets, n);
+            int[] targets = new int[size];
+            double[] weights = new double[size];
+            for (int k = 0; k < size; k++) {
+                int i = byTarget[k];
+                int pos = next[from[i]]++;
+                targets[pos] = to[i];
+                weights[pos] = wgts[i];
+            }
+
+            // drop repeated targets, keeping the weight added last
+            int[] degrees = new int[n];
+            int write = 0;
+            int numEdge = 0;
+            for (int v = 0; v < n; v++) {
+                int start = offsets[v];
+                int end = offsets[v + 1];
+                offsets[v] = write;
+                for (int i = start; i < end; i++) {
+                    if (i + 1 < end && targets[i + 1] == targets[i]) {
+                        continue;
+                    }
+                    targets[write] = targets[i];
+                    weights[write] = weights[i];
+                    write++;
+                }
+                degrees[v] = write - offsets[v];
+                numEdge += degrees[v];
+            }
+            offsets[n] = write;
+            if (write < size) {
+                targets = Arrays.copyOf(targets, write);
+                weights = Arrays.copyOf(weights, write);
+            }
+            return new GraphCSR(offsets, degrees, targets, weights, numEdge);
+        }
+    }
+}
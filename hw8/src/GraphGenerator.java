@@ -0,0 +1,406 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic undirected contact graphs with a random transmission
+ * probability on every edge. Node ids run from 1 to nodes, as in the
+ * datasets. Each edge is emitted once, in the "u v p" form of a .mtx file.
+ * The same shape, size and seed always give the same edges.
+ *
+ * The random shapes draw their pairs independently, so the same pair can be
+ * emitted more than once: the stream is a multigraph. Loading collapses a
+ * repeated pair to one edge with the last probability, so the loaded graph
+ * has at most edgeCount() edges and an average degree slightly below the
+ * one asked for. Keeping the draws independent is what lets these shapes
+ * stream in constant memory.
+ *
+ * Shapes:
+ * <ul>
+ * <li>{@link Shape#ERDOS_RENYI}: nodes * degree / 2 edges between uniformly
+ * random pairs;</li>
+ * <li>{@link Shape#POWER_LAW}: nodes * degree / 2 edges whose endpoints are
+ * drawn with weight id^(-1 / (gamma - 1)), a Chung-Lu graph with degree
+ * exponent gamma = 2.5, so the hubs are the low ids;</li>
+ * <li>{@link Shape#SMALL_WORLD}: a Watts-Strogatz ring where each node links
+ * to its degree / 2 next ids and each link is rewired to a random node with
+ * probability 0.1;</li>
+ * <li>{@link Shape#BARABASI_ALBERT}: preferential attachment, where each new
+ * node links to degree / 2 existing nodes chosen in proportion to their
+ * degree;</li>
+ * <li>{@link Shape#GRID}: a square lattice, where every node links to its
+ * right and lower neighbor (degree is ignored).</li>
+ * </ul>
+ * All shapes but BARABASI_ALBERT use constant memory, so they can stream
+ * 10^8 edges to a file. BARABASI_ALBERT keeps both endpoints of every edge.
+ *
+ * Probabilities follow {@link #UNIFORM} in [0.05, 0.95] by default, or
+ * {@link #EXPONENTIAL} with mean 0.2 (most contacts weak, a few strong), or
+ * {@link #FIXED} at 0.5. They are kept within [0.0001, 0.9999] and rounded
+ * to four digits, so a graph built in memory matches one loaded from the
+ * written file.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class GraphGenerator {
+
+    /**
+     * The topology of the generated graph, see the class comment
+     */
+    public enum Shape {
+        ERDOS_RENYI("er"),
+        BARABASI_ALBERT("ba"),
+        GRID("grid"),
+        POWER_LAW("powerlaw"),
+        SMALL_WORLD("ws");
+
+        private final String key;
+
+        Shape(String key) {
+            this.key = key;
+        }
+
+
+        /**
+         * @return the short name the command-line tools take, such as "er"
+         */
+        public String key() {
+            return key;
+        }
+
+
+        /**
+         * @param key - a short name such as "er", or a constant name such as
+         *            "ERDOS_RENYI" in any case
+         * @return the shape with that name
+         * @throws IllegalArgumentException if no shape has that name
+         */
+        public static Shape parse(String key) {
+            for (Shape shape: values()) {
+                if (shape.key.equals(key) || shape.name().equalsIgnoreCase(key)) {
+                    return shape;
+                }
+            }
+            throw new IllegalArgumentException("unknown shape " + key);
+        }
+    }
+
+    public static final String UNIFORM = "uniform";
+    public static final String EXPONENTIAL = "exponential";
+    public static final String FIXED = "fixed";
+
+    private static final double GAMMA = 2.5;
+    private static final double REWIRE = 0.1;
+
+    /**
+     * Receives the generated edges one at a time
+     */
+    public interface EdgeSink {
+        /**
+         * @param u - one endpoint
+         * @param v - the other endpoint
+         * @param p - the transmission probability of the edge
+         * @throws IOException if the edge cannot be written
+         */
+        void edge(int u, int v, double p) throws IOException;
+    }
+
+    private final Shape shape;
+    private final int nodes;
+    private final int degree;
+    private final String distribution;
+    private final long seed;
+
+
+    /**
+     * @param shape  the topology
+     * @param nodes  the number of nodes
+     * @param degree the average degree to aim for
+     * @param seed   the random seed
+     */
+    public GraphGenerator(Shape shape, int nodes, int degree, long seed) {
+        this(shape, nodes, degree, UNIFORM, seed);
+    }
+
+
+    /**
+     * @param shape        the topology
+     * @param nodes        the number of nodes
+     * @param degree       the average degree to aim for
+     * @param distribution the edge probability distribution, one of
+     *                     UNIFORM, EXPONENTIAL, FIXED
+     * @param seed         the random seed
+     */
+    public GraphGenerator(Shape shape, int nodes, int degree, String distribution, long seed) {
+        if (shape == null) {
+            throw new IllegalArgumentException("no shape");
+        }
+        if (!Arrays.asList(UNIFORM, EXPONENTIAL, FIXED).contains(distribution)) {
+            throw new IllegalArgumentException("unknown distribution " + distribution);
+        }
+        if (nodes < 2 || degree < 1) {
+            throw new IllegalArgumentException("need at least 2 nodes and degree 1");
+        }
+        this.shape = shape;
+        this.nodes = nodes;
+        this.degree = degree;
+        this.distribution = distribution;
+        this.seed = seed;
+    }
+
+
+    /**
+     * @return the number of nodes
+     */
+    public int nodeCount() {
+        return nodes;
+    }
+
+
+    /**
+     * @return the number of edges generate will emit, counting repeated
+     *         pairs of the random shapes once per emission
+     */
+    public long edgeCount() {
+        switch (shape) {
+            case ERDOS_RENYI:
+            case POWER_LAW:
+                return (long) nodes * degree / 2;
+            case SMALL_WORLD:
+                return (long) nodes * ringLinks();
+            case BARABASI_ALBERT:
+                int m = attachments();
+                return (long) m * (m + 1) / 2 + (long) (nodes - m - 1) * m;
+            default:
+                int width = gridWidth();
+                int rows = (nodes + width - 1) / width;
+                // right links skip the last node of each row, down links the last row
+                return (nodes - rows) + (nodes - width);
+        }
+    }
+
+
+    /**
+     * Emit every edge to the sink
+     *
+     * @param sink the receiver of the edges
+     * @throws IOException if the sink fails
+     */
+    public void generate(EdgeSink sink) throws IOException {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        switch (shape) {
+            case ERDOS_RENYI:
+                erdosRenyi(rnd, sink);
+                break;
+            case POWER_LAW:
+                powerLaw(rnd, sink);
+                break;
+            case SMALL_WORLD:
+                smallWorld(rnd, sink);
+                break;
+            case BARABASI_ALBERT:
+                barabasiAlbert(rnd, sink);
+                break;
+            default:
+                grid(rnd, sink);
+        }
+    }
+
+
+    /**
+     * @return a builder holding both directions of every edge with weight
+     *         -log(p), the same edges loading the written file would give
+     */
+    public GraphCSR.Builder toBuilder() {
+        long m = edgeCount();
+        int expected = (int) Math.min(Integer.MAX_VALUE - 8, 2 * m);
+        GraphCSR.Builder builder = new GraphCSR.Builder(nodes + 1, expected);
+        try {
+            generate((u, v, p) -> {
+                builder.addEdge(u, v, -Math.log(p));
+                builder.addEdge(v, u, -Math.log(p));
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // the builder never throws
+        }
+        return builder;
+    }
+
+
+    /**
+     * Write the graph as a .mtx file, streaming the edges as they are
+     * generated. Lines are formatted straight into a byte buffer, so the
+     * memory use does not grow with the number of edges.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeMtx(String path) throws IOException {
+        try (OutputStream file = Files.newOutputStream(Paths.get(path));
+                OutputStream out = new BufferedOutputStream(file, 1 << 16)) {
+            out.write((nodes + " " + edgeCount() + "\n").getBytes(StandardCharsets.US_ASCII));
+            byte[] line = new byte[40];
+            generate((u, v, p) -> {
+                int at = appendInt(line, 0, u);
+                line[at++] = ' ';
+                at = appendInt(line, at, v);
+                line[at++] = ' ';
+                at = appendProbability(line, at, p);
+                line[at++] = '\n';
+                out.write(line, 0, at);
+            });
+        }
+    }
+
+    private void erdosRenyi(SplittableRandom rnd, EdgeSink sink) throws IOException {
+        long m = edgeCount();
+        for (long i = 0; i < m; i++) {
+            int u = 1 + rnd.nextInt(nodes);
+            int v = 1 + rnd.nextInt(nodes - 1);
+            if (v >= u) {
+                v++; // no self loops
+            }
+            sink.edge(u, v, probability(rnd));
+        }
+    }
+
+    private void powerLaw(SplittableRandom rnd, EdgeSink sink) throws IOException {
+        long m = edgeCount();
+        for (long i = 0; i < m; i++) {
+            int u = powerLawNode(rnd);
+            int v = powerLawNode(rnd);
+            while (v == u) {
+                v = powerLawNode(rnd);
+            }
+            sink.edge(u, v, probability(rnd));
+        }
+    }
+
+    // Inverse transform of the density x^(-a) on [1, nodes + 1), a = 1 / (gamma - 1)
+    private int powerLawNode(SplittableRandom rnd) {
+        double b = 1 - 1 / (GAMMA - 1);
+        double top = Math.pow(nodes + 1, b);
+        double x = Math.pow(1 + rnd.nextDouble() * (top - 1), 1 / b);
+        return (int) Math.min(nodes, Math.max(1, x));
+    }
+
+    private void smallWorld(SplittableRandom rnd, EdgeSink sink) throws IOException {
+        int k = ringLinks();
+        for (int u = 1; u <= nodes; u++) {
+            for (int j = 1; j <= k; j++) {
+                int v = (u - 1 + j) % nodes + 1;
+                if (rnd.nextDouble() < REWIRE) {
+                    v = 1 + rnd.nextInt(nodes - 1);
+                    if (v >= u) {
+                        v++; // no self loops
+                    }
+                }
+                sink.edge(u, v, probability(rnd));
+            }
+        }
+    }
+
+    // Number of ring neighbors on each side in the small-world model
+    private int ringLinks() {
+        return Math.max(1, Math.min(degree / 2, (nodes - 1) / 2));
+    }
+
+    private void barabasiAlbert(SplittableRandom rnd, EdgeSink sink) throws IOException {
+        int m = attachments();
+        // every edge puts both endpoints here, so a uniform pick is degree-weighted
+        int[] ends = new int[(int) (2 * edgeCount())];
+        int size = 0;
+        for (int u = 1; u <= m + 1; u++) {
+            for (int v = u + 1; v <= m + 1; v++) {
+                sink.edge(u, v, probability(rnd));
+                ends[size++] = u;
+                ends[size++] = v;
+            }
+        }
+        int[] picked = new int[m];
+        for (int u = m + 2; u <= nodes; u++) {
+            int count = 0;
+            int start = size;
+            while (count < m) {
+                int v = ends[rnd.nextInt(start)];
+                boolean seen = false;
+                for (int i = 0; i < count; i++) {
+                    seen |= picked[i] == v;
+                }
+                if (!seen) {
+                    picked[count++] = v;
+                    sink.edge(u, v, probability(rnd));
+                    ends[size++] = u;
+                    ends[size++] = v;
+                }
+            }
+        }
+    }
+
+    private void grid(SplittableRandom rnd, EdgeSink sink) throws IOException {
+        int width = gridWidth();
+        for (int u = 1; u <= nodes; u++) {
+            if (u % width != 0 && u < nodes) {
+                sink.edge(u, u + 1, probability(rnd));
+            }
+            if (u + width <= nodes) {
+                sink.edge(u, u + width, probability(rnd));
+            }
+        }
+    }
+
+    // Number of edges each new node brings in the preferential attachment model
+    private int attachments() {
+        return Math.max(1, Math.min(degree / 2, nodes - 1));
+    }
+
+    private int gridWidth() {
+        return Math.max(1, (int) Math.sqrt(nodes));
+    }
+
+    // A probability in 1 / 10000 steps, never 0 or 1
+    private double probability(SplittableRandom rnd) {
+        int steps;
+        switch (distribution) {
+            case EXPONENTIAL:
+                steps = (int) Math.round(-2000 * Math.log(1 - rnd.nextDouble()));
+                break;
+            case FIXED:
+                steps = 5000;
+                break;
+            default:
+                steps = 500 + rnd.nextInt(9001);
+        }
+        return Math.max(1, Math.min(9999, steps)) / 10000.0;
+    }
+
+    private static int appendInt(byte[] line, int at, int value) {
+        int end = at;
+        int rest = value;
+        do {
+            end++;
+            rest /= 10;
+        } while (rest > 0);
+        for (int i = end - 1; i >= at; i--) {
+            line[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    // Four decimals without going through String.format
+    private static int appendProbability(byte[] line, int at, double p) {
+        int digits = (int) Math.round(p * 10000);
+        line[at++] = (byte) ('0' + digits / 10000);
+        line[at++] = '.';
+        for (int scale = 1000; scale > 0; scale /= 10) {
+            line[at++] = (byte) ('0' + digits / scale % 10);
+        }
+        return at;
+    }
+}
@@ -1,3 +1,4 @@
+import java.util.BitSet;
 
 /**
  * @author OpenDSA
@@ -8,6 +9,7 @@ public class GraphL implements Graph {
     private Edge[] nodeArray;
     private double[] nodeValues;
     private int numEdge;
+    private DegreeIndex degrees;
 
 
     
@@ -19,6 +21,57 @@ public class GraphL implements Graph {
     }
 
 
+    /**
+     * Copy g in O(n + m). The cursor of g gives every row in ascending
+     * order, so each edge is appended behind the last one of its list
+     * instead of searching for its place the way addEdge does, which is
+     * quadratic in the degree of a hub.
+     *
+     * @param g the graph to copy
+     * @return a new GraphL with the edges of g
+     */
+    public static GraphL copyOf(Graph g) {
+        return copyOf(g, null);
+    }
+
+
+    /**
+     * Copy g without the edges touching the nodes in removed, in the same
+     * single pass as copyOf(g)
+     *
+     * @param g       the graph to copy
+     * @param removed the nodes to leave disconnected, or null for none
+     * @return a new GraphL with the remaining edges of g
+     */
+    public static GraphL copyOf(Graph g, BitSet removed) {
+        int n = g.nodeCount();
+        GraphL copy = new GraphL();
+        copy.nodeArray = new Edge[n];
+        copy.nodeValues = new double[n];
+        int[] degree = new int[n];
+        NeighborCursor cursor = g.neighborCursor();
+        for (int v = 0; v < n; v++) {
+            Edge tail = new Edge(-1, -1, null, null);
+            copy.nodeArray[v] = tail;
+            if (removed != null && removed.get(v)) {
+                continue;
+            }
+            cursor.reset(v);
+            while (cursor.next()) {
+                if (cursor.weight() == 0 || (removed != null && removed.get(cursor.target()))) {
+                    continue;
+                }
+                tail.next = new Edge(cursor.target(), cursor.weight(), tail, null);
+                tail = tail.next;
+                degree[v]++;
+            }
+            copy.numEdge += degree[v];
+        }
+        copy.degrees = new DegreeIndex(degree);
+        return copy;
+    }
+
+
     // Initialize the graph with n vertices
     public void init(int n) {
         nodeArray = new Edge[n];
@@ -28,6 +81,7 @@ public class GraphL implements Graph {
         }
         nodeValues = new double[n];
         numEdge = 0;
+        degrees = new DegreeIndex(n);
     }
 
 
@@ -78,9 +132,10 @@ public class GraphL implements Graph {
             curr.next = new Edge(w, wgt, curr, curr.next);
             if (curr.next.next != null) {
                 curr.next.next.prev = curr.next;
-            }      
+            }
+            degrees.increment(v);
+            numEdge++;
         }
-        numEdge++;
     }
 
 
@@ -106,6 +161,7 @@ public class GraphL implements Graph {
                 curr.next.prev = curr;
             } 
         }
+        degrees.decrement(v);
         numEdge--;
     }
 
@@ -130,4 +186,53 @@ public class GraphL implements Graph {
         }
         return temp;
     }
+
+
+    // Returns the number of neighbors of v
+    public int degree(int v) {
+        return degrees.degree(v);
+    }
+
+
+    // Returns the nodes with degree d in ascending order
+    public int[] nodesWithDegree(int d) {
+        return degrees.nodes(d);
+    }
+
+
+    // Returns the number of nodes of every degree
+    public int[] degreeHistogram() {
+        return degrees.histogram();
+    }
+
+
+    // Returns a cursor over the linked neighbor lists
+    public NeighborCursor neighborCursor() {
+        return new ListCursor();
+    }
+
+
+    /**
+     * Follows the next links of one neighbor list
+     */
+    private class ListCursor implements NeighborCursor {
+        private Edge curr;
+
+        public void reset(int v) {
+            curr = nodeArray[v];
+        }
+
+        public boolean next() {
+            curr = curr.next;
+            return curr != null;
+        }
+
+        public int target() {
+            return curr.vertex;
+        }
+
+        public double weight() {
+            return curr.weight;
+        }
+    }
 }
@@ -0,0 +1,277 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a loaded graph, so a restart can skip parsing the .mtx
+ * file and recomputing the -log(p) weights. The layout, little endian, is
+ *
+ * <pre>
+ * int    magic "GSNP"
+ * int    format version
+ * int    node count n
+ * int    directed edge count m
+ * long   length of the source file, or -1
+ * long   last modified time of the source file, or -1
+ * long   CRC32 of everything after the header
+ * int[n + 1] row offsets
+ * int[m]     targets (padded to 8 bytes)
+ * double[m]  weights, already -log(p)
+ * </pre>
+ *
+ * Loading maps the file and bulk-copies each section into the GraphCSR
+ * arrays. Files with a wrong magic number, another version, a bad checksum
+ * or a different source stamp are rejected with an IOException. Saving
+ * writes a temporary file next to the snapshot, forces it to disk and
+ * renames it over the old one, so a crash mid-write leaves either the old
+ * snapshot or none, never a torn one.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class GraphSnapshot {
+
+    static final int MAGIC = 0x504E5347; // "GSNP" read little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 40;
+    private static final int MAP_STEP = 1 << 28;
+
+    private GraphSnapshot() {
+        // static utility
+    }
+
+
+    /**
+     * Write g to a snapshot file
+     *
+     * @param g          the graph to write
+     * @param path       the snapshot file, replaced atomically if it exists
+     * @param sourcePath the file g was loaded from, stamped into the header
+     *                   so a later change to it makes the snapshot stale,
+     *                   or null
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(Graph g, String path, String sourcePath) throws IOException {
+        int n = g.nodeCount();
+        NeighborCursor cursor = g.neighborCursor();
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            int d = 0;
+            cursor.reset(v);
+            while (cursor.next()) {
+                d++;
+            }
+            offsets[v + 1] = offsets[v] + d;
+        }
+        int m = offsets[n];
+
+        Path target = Paths.get(path).toAbsolutePath();
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(),
+                ".tmp");
+        boolean moved = false;
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                Writer out = new Writer(ch, HEADER_BYTES);
+                for (int i = 0; i <= n; i++) {
+                    out.putInt(offsets[i]);
+                }
+                for (int v = 0; v < n; v++) {
+                    cursor.reset(v);
+                    while (cursor.next()) {
+                        out.putInt(cursor.target());
+                    }
+                }
+                if (((n + 1 + m) & 1) != 0) {
+                    out.putInt(0);
+                }
+                for (int v = 0; v < n; v++) {
+                    cursor.reset(v);
+                    while (cursor.next()) {
+                        out.putDouble(cursor.weight());
+                    }
+                }
+                long checksum = out.finish();
+
+                long[] stamp = stamp(sourcePath);
+                ByteBuffer header =
+                        ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m);
+                header.putLong(stamp[0]).putLong(stamp[1]).putLong(checksum);
+                header.flip();
+                ch.write(header, 0);
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+
+    /**
+     * Read a snapshot without checking it against a source file
+     *
+     * @param path the snapshot file
+     * @return the graph stored in it
+     * @throws IOException if the file is unreadable, corrupt or of another version
+     */
+    public static GraphCSR load(String path) throws IOException {
+        return load(path, null);
+    }
+
+
+    /**
+     * Read a snapshot, rejecting it if sourcePath changed since it was written
+     *
+     * @param path       the snapshot file
+     * @param sourcePath the .mtx file the snapshot was made from, or null to
+     *                   skip the check
+     * @return the graph stored in it
+     * @throws IOException if the file is unreadable, corrupt, stale or of
+     *                     another version
+     */
+    public static GraphCSR load(String path, String sourcePath) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) {
+                throw new IOException(path + " is not a graph snapshot");
+            }
+            ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a graph snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + " has snapshot version " + version
+                        + ", expected " + VERSION);
+            }
+            int n = header.getInt();
+            int m = header.getInt();
+            long length = header.getLong();
+            long modified = header.getLong();
+            long checksum = header.getLong();
+            if (sourcePath != null) {
+                long[] stamp = stamp(sourcePath);
+                if (stamp[0] != length || stamp[1] != modified) {
+                    throw new IOException(path + " is stale: " + sourcePath + " changed");
+                }
+            }
+            long targetsAt = HEADER_BYTES + 4L * (n + 1);
+            long weightsAt = targetsAt + 4L * (m + ((n + 1 + m) & 1));
+            if (n < 0 || m < 0 || ch.size() != weightsAt + 8L * m) {
+                throw new IOException(path + " is truncated");
+            }
+
+            CRC32 crc = new CRC32();
+            int[] offsets = new int[n + 1];
+            readInts(ch, HEADER_BYTES, offsets, crc);
+            int[] targets = new int[m];
+            readInts(ch, targetsAt, targets, crc);
+            if (weightsAt > targetsAt + 4L * m) {
+                crc.update(map(ch, targetsAt + 4L * m, 4));
+            }
+            double[] weights = new double[m];
+            readDoubles(ch, weightsAt, weights, crc);
+            if (crc.getValue() != checksum) {
+                throw new IOException(path + " failed its checksum");
+            }
+            return GraphCSR.fromRows(offsets, targets, weights);
+        }
+    }
+
+    // Length and last modified time of the source file, or -1s
+    private static long[] stamp(String sourcePath) {
+        if (sourcePath == null) {
+            return new long[] {-1, -1};
+        }
+        File f = new File(sourcePath);
+        return new long[] {f.length(), f.lastModified()};
+    }
+
+    private static MappedByteBuffer map(FileChannel ch, long at, long bytes) throws IOException {
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, at, bytes);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        return buf;
+    }
+
+    private static void readInts(FileChannel ch, long at, int[] dst, CRC32 crc) throws IOException {
+        for (int off = 0; off < dst.length; off += MAP_STEP / 4) {
+            int count = Math.min(MAP_STEP / 4, dst.length - off);
+            MappedByteBuffer buf = map(ch, at + 4L * off, 4L * count);
+            crc.update(buf.duplicate());
+            buf.asIntBuffer().get(dst, off, count);
+        }
+    }
+
+    private static void readDoubles(FileChannel ch, long at, double[] dst, CRC32 crc)
+            throws IOException {
+        for (int off = 0; off < dst.length; off += MAP_STEP / 8) {
+            int count = Math.min(MAP_STEP / 8, dst.length - off);
+            MappedByteBuffer buf = map(ch, at + 8L * off, 8L * count);
+            crc.update(buf.duplicate());
+            buf.asDoubleBuffer().get(dst, off, count);
+        }
+    }
+
+
+    /**
+     * Buffered little endian writer that checksums what it writes
+     */
+    private static class Writer {
+        private final FileChannel ch;
+        private final ByteBuffer buf =
+                ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 crc = new CRC32();
+        private long at;
+
+        Writer(FileChannel ch, long start) {
+            this.ch = ch;
+            this.at = start;
+        }
+
+        void putInt(int x) throws IOException {
+            if (buf.remaining() < 4) {
+                flush();
+            }
+            buf.putInt(x);
+        }
+
+        void putDouble(double x) throws IOException {
+            if (buf.remaining() < 8) {
+                flush();
+            }
+            buf.putDouble(x);
+        }
+
+        long finish() throws IOException {
+            flush();
+            return crc.getValue();
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            crc.update(buf.duplicate());
+            while (buf.hasRemaining()) {
+                at += ch.write(buf, at);
+            }
+            buf.clear();
+        }
+    }
+}
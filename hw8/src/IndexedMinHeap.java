@@ -0,0 +1,181 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node ids ordered by an external key array, with
+ * decrease-key. Each node is in the heap at most once and its slot is
+ * tracked in a position array, so a search never pushes duplicates and the
+ * heap never holds more than nodeCount entries.
+ *
+ * The heap reads keys[v] whenever it compares v, so callers must lower
+ * keys[v] first and then call decreaseKey(v). An optional second int array
+ * breaks ties between equal keys, lower first, so nodes come out in the
+ * lexicographic order of (keys[v], ties[v]).
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class IndexedMinHeap {
+
+    private final double[] keys;
+    private final int[] ties;
+    private final int[] heap;
+    private final int[] pos;
+    private int size;
+
+
+    /**
+     * @param keys the key of every node id, shared with the caller
+     */
+    public IndexedMinHeap(double[] keys) {
+        this(keys, null);
+    }
+
+
+    /**
+     * @param keys the key of every node id, shared with the caller
+     * @param ties the tie breaker of every node id, shared with the caller,
+     *             or null to leave ties in any order
+     */
+    public IndexedMinHeap(double[] keys, int[] ties) {
+        this.keys = keys;
+        this.ties = ties;
+        this.heap = new int[keys.length];
+        this.pos = new int[keys.length];
+        Arrays.fill(pos, -1);
+    }
+
+
+    /**
+     * @return true if the heap is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    /**
+     * @return the number of nodes in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * @param v the node
+     * @return true if v is currently in the heap
+     */
+    public boolean contains(int v) {
+        return pos[v] >= 0;
+    }
+
+
+    /**
+     * Insert v with key keys[v], or restore its position if it is already
+     * in the heap and its key went down
+     *
+     * @param v the node
+     */
+    public void push(int v) {
+        if (pos[v] >= 0) {
+            siftUp(pos[v]);
+            return;
+        }
+        heap[size] = v;
+        pos[v] = size;
+        siftUp(size++);
+    }
+
+
+    /**
+     * Restore the heap order after keys[v] was lowered
+     *
+     * @param v the node, which must be in the heap
+     */
+    public void decreaseKey(int v) {
+        siftUp(pos[v]);
+    }
+
+
+    /**
+     * @return the node with the smallest key, without removing it
+     */
+    public int peek() {
+        return heap[0];
+    }
+
+
+    /**
+     * Remove and return the node with the smallest key
+     *
+     * @return the node with the smallest key
+     */
+    public int poll() {
+        int top = heap[0];
+        pos[top] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+
+    /**
+     * Remove every node, in time proportional to the current size
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+
+    // True if a comes out strictly before b
+    private boolean before(int a, int b) {
+        return keys[a] < keys[b] || (ties != null && keys[a] == keys[b] && ties[a] < ties[b]);
+    }
+
+
+    private void siftUp(int i) {
+        int v = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (!before(v, p)) {
+                break;
+            }
+            heap[i] = p;
+            pos[p] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        pos[v] = i;
+    }
+
+
+    private void siftDown(int i) {
+        int v = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && before(heap[right], c)) {
+                child = right;
+                c = heap[child];
+            }
+            if (!before(c, v)) {
+                break;
+            }
+            heap[i] = c;
+            pos[c] = i;
+            i = child;
+        }
+        heap[i] = v;
+        pos[v] = i;
+    }
+}
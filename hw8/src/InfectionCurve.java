@@ -0,0 +1,98 @@
+import java.util.Arrays;
+
+/**
+ * The infected fraction as a function of the threshold, for one source.
+ * Best-path probabilities do not depend on the threshold. So one search
+ * gives every node's probability, and after sorting them each threshold is
+ * answered with a binary search. The answers equal transfectionRate for
+ * the same source and threshold.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class InfectionCurve {
+
+    private final double[] ascending;
+    private final int nodes;
+
+
+    /**
+     * @param probabilities the best-path probability of every reached node,
+     *                      in any order; the array is sorted in place
+     * @param nodes         the number of nodes in the graph, not counting
+     *                      node 0
+     */
+    public InfectionCurve(double[] probabilities, int nodes) {
+        Arrays.sort(probabilities);
+        this.ascending = probabilities;
+        this.nodes = nodes;
+    }
+
+
+    /**
+     * @param threshold the infection threshold
+     * @return the number of nodes that catch the disease
+     */
+    public int count(double threshold) {
+        if (InformationSpread.catches(0, threshold)) {
+            return nodes; // even unreachable nodes pass
+        }
+        // first position that passes; the test is monotone in the probability
+        int lo = 0;
+        int hi = ascending.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (InformationSpread.catches(ascending[mid], threshold)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return ascending.length - lo;
+    }
+
+
+    /**
+     * @param threshold the infection threshold
+     * @return the percentage of the nodes that catch the disease, the same
+     *         value transfectionRate returns
+     */
+    public double rate(double threshold) {
+        return (double) count(threshold) / nodes;
+    }
+
+
+    /**
+     * @param thresholds the infection thresholds, in any order
+     * @return the rate at each threshold
+     */
+    public double[] rates(double[] thresholds) {
+        double[] rates = new double[thresholds.length];
+        for (int i = 0; i < thresholds.length; i++) {
+            rates[i] = rate(thresholds[i]);
+        }
+        return rates;
+    }
+
+
+    /**
+     * The cumulative distribution: a threshold up to entry i infects at
+     * least i + 1 nodes
+     *
+     * @return the best-path probabilities of the reached nodes, highest first
+     */
+    public double[] probabilities() {
+        double[] descending = new double[ascending.length];
+        for (int i = 0; i < ascending.length; i++) {
+            descending[i] = ascending[ascending.length - 1 - i];
+        }
+        return descending;
+    }
+
+
+    /**
+     * @return the number of nodes the source can reach at all
+     */
+    public int reachable() {
+        return ascending.length;
+    }
+}
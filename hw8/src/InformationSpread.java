@@ -1,19 +1,63 @@
 import java.util.*;
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
 
 /**
  * Expand hw7 by assigning a random probability of transmission to each edge
+ * 
+ * The loaded graph is never modified once it is published in the graph
+ * field. Queries read the field once and keep all of their working state
+ * (distances, predecessors, heaps) to themselves, so any number of threads
+ * can run them at the same time without locking. Loading and the removal
+ * methods are synchronized with each other. They build a modified copy and
+ * then publish it, so a query that is already running keeps the graph it
+ * started with.
+ * 
  * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
  *
  */
 public class InformationSpread implements IInformationSpread {
 
-    private Graph graph;
+    // fixed so that sampled coefficients are the same from run to run
+    private static final long SAMPLE_SEED = 594L;
+    // enough for about ten dense trees of a million nodes
+    private static final long PATH_CACHE_BYTES = 128L << 20;
+    private static final int LANDMARK_COUNT = 8;
+
+    /**
+     * How longestTransmissionPath(source, destination, mode) finds a path
+     */
+    public enum PathMode {
+        /** walk the cached shortest-path tree of the source */
+        DIJKSTRA,
+        /** search from both ends until the two searches meet */
+        BIDIRECTIONAL,
+        /** A* toward the destination with landmark lower bounds */
+        LANDMARKS
+    }
+
+    private volatile Graph graph;
+    private final boolean compact;
+    private volatile Clustering clustering;
+    private volatile Cascades cascades;
+    private volatile PointToPoint pointToPoint;
+    private volatile double bucketWidth;
+    private final PathTreeCache pathTrees = new PathTreeCache(PATH_CACHE_BYTES);
 
     public InformationSpread() {
-        graph = new GraphL(); 
+        this(false);
+    }
+
+    /**
+     * @param compact true to keep the loaded graph in a GraphCSR instead of a GraphL
+     */
+    public InformationSpread(boolean compact) {
+        this.compact = compact;
+        graph = compact ? new GraphCSR() : new GraphL();
+        pointToPoint = new PointToPoint(graph, true);
     }
 
     
@@ -26,35 +70,93 @@ public class InformationSpread implements IInformationSpread {
      * @param filePath the path of the data
      * @return the number of entries (nodes) in the dataset (graph)
      */
-    @SuppressWarnings("resource")
     @Override
-    public int loadGraphFromDataSet(String filePath) {
+    public synchronized int loadGraphFromDataSet(String filePath) {
         try {
-            BufferedReader r = new BufferedReader(new FileReader(filePath));
-            String line = r.readLine();
-            String[] nums = line.split(" ");
-            int v = Integer.parseInt(nums[0]);
-            graph.init(v + 1);
-            line = r.readLine();
-            while (line != null) {
-                String[] words = line.split(" ");
-                int v1 = Integer.parseInt(words[0]);
-                int v2 = Integer.parseInt(words[1]);
-                double w = -1 * Math.log(Double.parseDouble(words[2])); // update
-                if (v1 == 0 || v2 == 0) {
-                    line = r.readLine();
-                    continue;
-                }
-                graph.addEdge(v1, v2, w);
-                graph.addEdge(v2, v1, w);
-                line = r.readLine();
-            }
+            publish(fromBuilder(MtxLoader.load(filePath)), true);
         } catch (IOException e) {
             e.printStackTrace();
         }
         return graph.nodeCount() - 1;
     }
 
+    /**
+     * Make g the graph every query sees and drop the path trees computed on
+     * the old one right away, instead of on the next path query. Callers
+     * hold the lock.
+     * 
+     * @param g         the new graph
+     * @param symmetric true if every edge of g has a reverse edge of the
+     *                  same weight, so g can stand in for its own reverse
+     */
+    private void publish(Graph g, boolean symmetric) {
+        graph = g;
+        pointToPoint = new PointToPoint(g, symmetric);
+        pathTrees.clear();
+    }
+
+    /**
+     * @param builder the edges of the graph
+     * @return a GraphCSR or GraphL holding the edges, depending on compact
+     */
+    private Graph fromBuilder(GraphCSR.Builder builder) {
+        GraphCSR rows = builder.build();
+        return compact ? rows : GraphL.copyOf(rows);
+    }
+
+    /**
+     * Load the graph from a snapshot written by saveSnapshot when it is still
+     * valid for filePath. Otherwise parse filePath and, only if that
+     * succeeds, write a new snapshot for the next start. A file that cannot
+     * be parsed keeps the previous graph and leaves the old snapshot alone.
+     * 
+     * @param filePath     the path of the data
+     * @param snapshotPath the path of the binary snapshot
+     * @return the number of entries (nodes) in the dataset (graph)
+     * @throws IOException if the snapshot is stale and filePath cannot be
+     *                     read or parsed
+     */
+    public synchronized int loadGraphFromDataSet(String filePath, String snapshotPath)
+            throws IOException {
+        try {
+            return loadGraphFromSnapshot(snapshotPath, filePath);
+        } catch (IOException stale) {
+            publish(fromBuilder(MtxLoader.load(filePath)), true);
+            try {
+                saveSnapshot(snapshotPath, filePath);
+            } catch (IOException e) {
+                e.printStackTrace(); // the graph is loaded, only the next start is slower
+            }
+            return graph.nodeCount() - 1;
+        }
+    }
+
+    /**
+     * Replace the graph with the one stored in a snapshot
+     * 
+     * @param snapshotPath the path of the binary snapshot
+     * @param sourcePath   the data file the snapshot must match, or null
+     * @return the number of entries (nodes) in the graph
+     * @throws IOException if the snapshot is missing, corrupt or stale
+     */
+    public synchronized int loadGraphFromSnapshot(String snapshotPath, String sourcePath)
+            throws IOException {
+        GraphCSR loaded = GraphSnapshot.load(snapshotPath, sourcePath);
+        publish(compact ? loaded : GraphL.copyOf(loaded), isSymmetric(loaded));
+        return graph.nodeCount() - 1;
+    }
+
+    /**
+     * Write the current graph, with its -log weights, to a binary snapshot
+     * 
+     * @param snapshotPath the path of the binary snapshot
+     * @param sourcePath   the data file the graph was loaded from, or null
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void saveSnapshot(String snapshotPath, String sourcePath) throws IOException {
+        GraphSnapshot.save(graph, snapshotPath, sourcePath);
+    }
+
     /**
      * Return the neighbors ids of a specific node
      * 
@@ -69,57 +171,198 @@ public class InformationSpread implements IInformationSpread {
     
     // -- longest possibility path of getting infected
     /**
-     * Store path from source to destination
-     * @param p
-     * @param pred
-     * @param destination
+     * The path of transmission with highest probability. The shortest-path
+     * tree from source is cached, so further queries from the same source
+     * only walk the tree back from destination.
+     * 
+     * @param source      - an infected node that could spread the disease
+     * @param destination - the id of the destination node
+     * @return the path to spread disease from source to destination with the
+     *         highest transmission probability
+     */
+    @Override
+    public Collection<Integer> longestTransmissionPath(int source, int destination) {
+        Collection<Integer> p = new ArrayList<>();
+        if (source == destination) {
+            return p;
+        }
+        TransmissionPath path = transmissionPath(source, destination);
+        for (int i = 0; i < path.length(); i++) {
+            p.add(path.node(i));
+        }
+        return p;
+    }
+
+
+    /**
+     * The path of transmission with highest probability, with the
+     * probability of every hop. Unlike longestTransmissionPath, an
+     * unreachable destination is reported by reachable() being false, and
+     * a path from a node to itself is that node with probability 1.
+     * 
+     * @param source      - an infected node that could spread the disease
+     * @param destination - the id of the destination node
+     * @return the path, from the cached shortest-path tree of source
      */
-    private void storepath(Collection<Integer> p, int[] pred, int destination) {
-        if (destination == 0) {
-            return;
+    public TransmissionPath transmissionPath(int source, int destination) {
+        Graph g = graph;
+        if (source <= 0 || source >= g.nodeCount()) {
+            return new TransmissionPath(source, destination, new int[0], new double[0]);
         }
-        storepath(p, pred, pred[destination]);
-        p.add(destination);
+        return pathTrees.tree(g, source, bucketWidth).transmissionPath(destination);
     }
 
+
     /**
-     * The path of transmission with highest probability
+     * The path of transmission with highest probability, found by one
+     * point-to-point search instead of a whole shortest-path tree
      * 
      * @param source      - an infected node that could spread the disease
      * @param destination - the id of the destination node
-     * @return the path to spread disease from source to destination with the
-     *         highest transmission probability
+     * @param mode        - how to search, see PathMode
+     * @return the same path as longestTransmissionPath(source, destination),
+     *         ties included
      */
-    @Override
-    public Collection<Integer> longestTransmissionPath(int source, int destination) {
+    public Collection<Integer> longestTransmissionPath(int source, int destination,
+            PathMode mode) {
         Collection<Integer> p = new ArrayList<>();
         if (source == destination) {
             return p;
         }
-        for (int i = 1; i < graph.nodeCount(); i++) {
-            graph.setValue(i, Double.POSITIVE_INFINITY);
-        }
-        int[] pred = new int[graph.nodeCount()];
-        Arrays.fill(pred, 0);
-        PriorityQueue<Integer> pq = new PriorityQueue<>();
-        graph.setValue(source, 0);
-        pq.add(source);
-        while (!pq.isEmpty()) {
-            int node = pq.poll();
-            if (node == destination) {
-                storepath(p, pred, destination);
-                break;
-            }
-            for (int neighbor: this.getNeighbors(node)) {
-                double temp = graph.getValue(node) + graph.weight(node, neighbor);
-                if (temp < graph.getValue(neighbor)) {
-                    graph.setValue(neighbor, temp);
-                    pq.add(neighbor);
-                    pred[neighbor] = node;
+        TransmissionPath path = transmissionPath(source, destination, mode);
+        for (int i = 0; i < path.length(); i++) {
+            p.add(path.node(i));
+        }
+        return p;
+    }
+
+
+    /**
+     * Like transmissionPath(source, destination), but found by the given
+     * search. The point-to-point modes report how many nodes they settled
+     * in the settledCount() of the result, so modes can be compared on the
+     * same queries.
+     * 
+     * @param source      - an infected node that could spread the disease
+     * @param destination - the id of the destination node
+     * @param mode        - how to search, see PathMode
+     * @return the path, unreachable if there is none
+     */
+    public TransmissionPath transmissionPath(int source, int destination, PathMode mode) {
+        if (mode == PathMode.DIJKSTRA) {
+            return transmissionPath(source, destination);
+        }
+        PointToPoint searches = pointToPoint;
+        int n = searches.graph.nodeCount();
+        if (source <= 0 || source >= n || destination <= 0 || destination >= n) {
+            return new TransmissionPath(source, destination, new int[0], new double[0]);
+        }
+        if (mode == PathMode.BIDIRECTIONAL) {
+            BidirectionalSearch search = searches.bidirectional();
+            search.run(source, destination);
+            TransmissionPath path = search.transmissionPath();
+            searches.release(search);
+            return path;
+        }
+        LandmarkSearch search = searches.landmark();
+        search.run(source, destination);
+        TransmissionPath path = search.transmissionPath();
+        searches.release(search);
+        return path;
+    }
+
+
+    /**
+     * @return the cache behind longestTransmissionPath, for its hit, miss
+     *         and eviction counters
+     */
+    public PathTreeCache pathTreeCache() {
+        return pathTrees;
+    }
+
+    /**
+     * Check once, when a snapshot is loaded, whether its graph is its own
+     * reverse. Every lookup is a binary search in a GraphCSR row, so this
+     * takes O(m log d). Graphs MtxLoader reads are symmetric by
+     * construction and are not checked, and removing nodes keeps the
+     * property, so it is never checked again after a mutation.
+     * 
+     * @param g the graph
+     * @return true if every edge (v, w) has an edge (w, v) of the same
+     *         weight
+     */
+    private static boolean isSymmetric(GraphCSR g) {
+        NeighborCursor cursor = g.neighborCursor();
+        for (int v = 0; v < g.nodeCount(); v++) {
+            cursor.reset(v);
+            while (cursor.next()) {
+                int w = cursor.target();
+                if (!g.hasEdge(w, v) || g.weight(w, v) != cursor.weight()) {
+                    return false;
                 }
             }
         }
-        return p;
+        return true;
+    }
+
+    /**
+     * A published graph with its reverse, which is the graph itself when it
+     * is symmetric and is otherwise built on first use, the landmark index
+     * over both, and the idle point-to-point searches on it. A search holds
+     * arrays the size of the graph, so queries borrow one from the pool and
+     * put it back instead of allocating their own; the pool never holds
+     * more searches than there were queries running at once.
+     */
+    private static final class PointToPoint {
+        private final Graph graph;
+        private final boolean symmetric;
+        private volatile Graph reverse;
+        private volatile LandmarkIndex landmarks;
+        private final Queue<BidirectionalSearch> idleBidirectional =
+                new ConcurrentLinkedQueue<>();
+        private final Queue<LandmarkSearch> idleLandmark = new ConcurrentLinkedQueue<>();
+
+        PointToPoint(Graph graph, boolean symmetric) {
+            this.graph = graph;
+            this.symmetric = symmetric;
+            this.reverse = symmetric ? graph : null;
+        }
+
+        Graph reverse() {
+            Graph r = reverse;
+            if (r == null) {
+                r = GraphCSR.Builder.reversed(graph).build();
+                reverse = r;
+            }
+            return r;
+        }
+
+        LandmarkIndex landmarks() {
+            LandmarkIndex index = landmarks;
+            if (index == null) {
+                index = new LandmarkIndex(graph, reverse(), LANDMARK_COUNT, SAMPLE_SEED);
+                landmarks = index;
+            }
+            return index;
+        }
+
+        BidirectionalSearch bidirectional() {
+            BidirectionalSearch search = idleBidirectional.poll();
+            return search != null ? search : new BidirectionalSearch(graph, reverse());
+        }
+
+        LandmarkSearch landmark() {
+            LandmarkSearch search = idleLandmark.poll();
+            return search != null ? search : new LandmarkSearch(graph, landmarks());
+        }
+
+        void release(BidirectionalSearch search) {
+            idleBidirectional.offer(search);
+        }
+
+        void release(LandmarkSearch search) {
+            idleLandmark.offer(search);
+        }
     }
 
     
@@ -133,7 +376,7 @@ public class InformationSpread implements IInformationSpread {
     public int findMaxVertex(boolean[] visited, double[] weight) {
         int index = -1;
         double maxW = Double.MIN_VALUE;
-        for (int i = 1; i < this.graph.nodeCount(); i++) {
+        for (int i = 1; i < weight.length; i++) {
             if (!visited[i] && weight[i] > maxW) {
                 maxW = weight[i];
                 index = i;
@@ -143,35 +386,45 @@ public class InformationSpread implements IInformationSpread {
     }
 
     /**
-     * The spanning tree of transmission with highest probability with Prim's algorithm
+     * The spanning tree of transmission with highest probability with Prim's
+     * algorithm. Unvisited nodes wait in an indexed heap keyed on the lightest
+     * -log weight connecting them to the tree, so each step costs O(log V)
+     * instead of a findMaxVertex scan, and no probability is recomputed.
+     * When a component is finished, the next unvisited node starts a new tree,
+     * so a disconnected graph gets a spanning forest.
      * 
      * @return the max spanning tree of this graph, representing the path that spans
-     *         the entire graph with the highest transmission probability
+     *         the entire graph with the highest transmission probability.
+     *         parent[v] is the node v is attached to; the root of every
+     *         component (node 1 for the first) is its own parent
      */
     @Override
     public int[] maxSpanningTreePrim() {
-        int n = this.graph.nodeCount();
+        Graph g = this.graph;
+        int n = g.nodeCount();
         boolean[] visited = new boolean[n];
         int[] parent = new int[n];
-        double[] currWeight = new double[n];
-        for (int u = 0; u < n; u++) {
-            visited[u] = false;
-            currWeight[u] = Double.MIN_VALUE;
-        }
-        currWeight[1] = Double.MAX_VALUE;
-        parent[1] = 1;
-        for (int i = 0; i < n; i++) {
-            int maxVertex = findMaxVertex(visited, currWeight);
-            if (maxVertex < 0) {
-                break;
+        double[] key = new double[n];
+        Arrays.fill(key, Double.POSITIVE_INFINITY);
+        IndexedMinHeap heap = new IndexedMinHeap(key);
+        NeighborCursor cursor = g.neighborCursor();
+        for (int root = 1; root < n; root++) {
+            if (visited[root]) {
+                continue;
             }
-            visited[maxVertex] = true;
-            for (int neighbor: this.graph.neighbors(maxVertex)) {
-                if (!visited[neighbor]) {
-                    double weight = Math.exp(-1 * this.graph.weight(maxVertex, neighbor));
-                    if (weight > currWeight[neighbor]) {
-                        currWeight[neighbor] = weight;
-                        parent[neighbor] = maxVertex;
+            parent[root] = root;
+            key[root] = 0;
+            heap.push(root);
+            while (!heap.isEmpty()) {
+                int u = heap.poll();
+                visited[u] = true;
+                cursor.reset(u);
+                while (cursor.next()) {
+                    int neighbor = cursor.target();
+                    if (neighbor != 0 && !visited[neighbor] && cursor.weight() < key[neighbor]) {
+                        key[neighbor] = cursor.weight();
+                        parent[neighbor] = u;
+                        heap.push(neighbor);
                     }
                 }
             }
@@ -180,70 +433,20 @@ public class InformationSpread implements IInformationSpread {
     }
     
     /**
-     * union find
-     * @param pred
-     * @param v
-     * @return the root of this vertex
-     */
-    private int find(int[] pred, int v) {
-        if (pred[v] == -1) {
-            return v;
-        }
-        return find(pred, pred[v]);
-    }
-    
-    /**
-     * union find
-     * @param pred
-     * @param v
-     * @return 
-     */
-    private void union(int[] pred, int u, int v) {
-        int uroot = find(pred, u);
-        int vroot = find(pred, v);
-        pred[uroot] = vroot;
-    }
-    
-    /**
-     * The spanning tree of transmission with highest probability with Kruskal algorithm
+     * The spanning tree of transmission with highest probability. The forest
+     * comes from SpanningForest's parallel Boruvka rounds, which pick the
+     * same edges as Kruskal's algorithm when no two weights tie.
      * 
      * @return the max spanning tree of this graph, representing the path that spans
-     *         the entire graph with the highest transmission probability
+     *         the entire graph with the highest transmission probability, with
+     *         the most probable edges first
      */
     @Override
     public Collection<Edge> maxSpanningTreeKruskal() {
-        Collection<Edge> col = new ArrayList<>();
-        PriorityQueue<Edge> pq = new PriorityQueue<>(new Comparator<Edge>() {
-            @Override
-            public int compare(Edge e1, Edge e2) {
-                if (e1.getWeight() < e2.getWeight()) {
-                    return -1;
-                } else if (e1.getWeight() > e2.getWeight()) {
-                    return 1;
-                } else {
-                    return 0;
-                }
-            }
-        });
-        int n = this.graph.nodeCount();
-        int[] pred = new int[n];
-        Arrays.fill(pred, -1);
-        for (int u = 1; u < n; u++) {
-            for (int neighbor: this.getNeighbors(u)) {
-                if (neighbor > u) {
-                    pq.add(new Edge(u, neighbor, this.graph.weight(u, neighbor)));
-                }
-            }
-        }
-        while (!pq.isEmpty()) {
-            Edge e = pq.poll();
-            int u = e.getLeft();
-            int v = e.getRight();
-            if (find(pred, u) != find(pred, v)) {
-                union(pred, u, v);
-                col.add(e);
-            }
-            
+        SpanningForest forest = new SpanningForest(graph);
+        Collection<Edge> col = new ArrayList<>(forest.size());
+        for (int i = 0; i < forest.size(); i++) {
+            col.add(new Edge(forest.left(i), forest.right(i), forest.weight(i)));
         }
         return col;
     }
@@ -258,6 +461,11 @@ public class InformationSpread implements IInformationSpread {
      */
     @Override
     public boolean willCatchtheDisease(double probability, double threshold) {
+        return catches(probability, threshold);
+    }
+
+    // The willCatchtheDisease test, shared with InfectionCurve
+    static boolean catches(double probability, double threshold) {
         return probability * 100 >= threshold * 100;
     }
 
@@ -270,34 +478,265 @@ public class InformationSpread implements IInformationSpread {
      */
     @Override
     public double transfectionRate(int source, double threshold) {
-        double count = 0;
-        for (int i = 1; i < graph.nodeCount(); i++) {
-            graph.setValue(i, Double.POSITIVE_INFINITY);
-        }
-        int[] pred = new int[graph.nodeCount()];
-        Arrays.fill(pred, 0);
-        PriorityQueue<Integer> pq = new PriorityQueue<>();
-        graph.setValue(source, 0);
-        pq.add(source);
-        while (!pq.isEmpty()) {
-            int node = pq.poll();
-            for (int neighbor: this.getNeighbors(node)) {
-                double temp = graph.getValue(node) + graph.weight(node, neighbor);
-                if (temp < graph.getValue(neighbor)) {
-                    graph.setValue(neighbor, temp);
-                    pq.add(neighbor);
-                    pred[neighbor] = node;
-                }
+        return transfectionRate(search(graph, null), source, threshold);
+    }
+
+    /**
+     * Run one search from source and count the nodes whose best path
+     * probability passes the threshold. Nodes the search did not reach have
+     * probability 0.
+     * 
+     * @param search    - the search state to use
+     * @param source    - an infected node that will spread the disease
+     * @param threshold
+     * @return the percentage of the nodes that will eventually catch the disease.
+     */
+    private double transfectionRate(SingleSourceSearch search, int source, double threshold) {
+        int nodes = search.graph().nodeCount() - 1;
+        if (willCatchtheDisease(0, threshold)) {
+            return 1;
+        }
+        search.run(source, -1, cutoff(threshold));
+        int count = 0;
+        for (int i = 0; i < search.reachedCount(); i++) {
+            int v = search.reachedNode(i);
+            if (v != 0 && willCatchtheDisease(Math.exp(-1 * search.distance(v)), threshold)) {
+                count++;
             }
         }
+        return (double) count / nodes;
+    }
 
-        for (int i = 1; i < graph.nodeCount(); i++) {
-            if (willCatchtheDisease(Math.exp(-1 * graph.getValue(i)), threshold)) {
-                count++;
+    /**
+     * The transfection rate as if the removed nodes had no edges. The shared
+     * graph is not modified, so any number of intervention scenarios can be
+     * evaluated against one loaded graph.
+     * 
+     * @param source    - an infected node that will spread the disease
+     * @param threshold
+     * @param removed   - the nodes to leave out of the spread, or null
+     * @return the percentage of the nodes that will eventually catch the disease.
+     */
+    public double transfectionRate(int source, double threshold, BitSet removed) {
+        return transfectionRate(search(graph, removed), source, threshold);
+    }
+
+    /**
+     * @param nodes the node ids
+     * @return a set with the bit of every id turned on
+     */
+    private static BitSet toBitSet(Collection<Integer> nodes) {
+        BitSet set = new BitSet();
+        for (int node: nodes) {
+            set.set(node);
+        }
+        return set;
+    }
+
+    /**
+     * The longest -log distance that can still pass willCatchtheDisease, with
+     * some slack so rounding never prunes a node that would have passed
+     * @param threshold
+     * @return the distance at which the search can stop expanding
+     */
+    private double cutoff(double threshold) {
+        return -1 * Math.log(threshold) + 1e-9;
+    }
+
+    /**
+     * Run single-source queries with a parallel DeltaSteppingSearch instead
+     * of the sequential Dijkstra. This pays off for one query on a large
+     * graph; batches of sources, like transfectionRates, already run one
+     * search per core and stay sequential inside each search.
+     * 
+     * @param width - the bucket width, about the typical edge weight
+     *              -log(p); 0 switches back to the sequential search
+     */
+    public void setBucketWidth(double width) {
+        if (width < 0 || Double.isNaN(width)) {
+            throw new IllegalArgumentException("bucket width must be >= 0, was " + width);
+        }
+        bucketWidth = width;
+    }
+
+    /**
+     * @param g       the graph to search
+     * @param removed the nodes to leave out, or null
+     * @return the search for one query, as chosen by setBucketWidth
+     */
+    private SingleSourceSearch search(Graph g, BitSet removed) {
+        return SingleSourceSearch.create(g, removed, bucketWidth);
+    }
+
+    /**
+     * Like transfectionRate, but returns the infected nodes themselves along
+     * with how many nodes the search settled and skipped. The search stops
+     * expanding paths once their probability drops below the threshold, so
+     * for a low threshold only the neighborhood of the source is visited.
+     * 
+     * @param source    - an infected node that will spread the disease
+     * @param threshold
+     * @return the infected nodes and search metrics
+     */
+    public SpreadResult transfectionSpread(int source, double threshold) {
+        return transfectionSpread(source, threshold, null);
+    }
+
+    /**
+     * Like transfectionSpread, evaluated as if the removed nodes had no edges.
+     * The shared graph is not modified.
+     * 
+     * @param source    - an infected node that will spread the disease
+     * @param threshold
+     * @param removed   - the nodes to leave out of the spread, or null
+     * @return the infected nodes and search metrics
+     */
+    public SpreadResult transfectionSpread(int source, double threshold, BitSet removed) {
+        SingleSourceSearch search = search(graph, removed);
+        int nodes = search.graph().nodeCount() - 1;
+        if (willCatchtheDisease(0, threshold)) {
+            // even unreachable nodes pass, no search needed
+            int[] all = new int[nodes];
+            for (int i = 0; i < nodes; i++) {
+                all[i] = i + 1;
+            }
+            return new SpreadResult(all, nodes, 0, 0);
+        }
+        search.run(source, -1, cutoff(threshold));
+        int[] infected = new int[search.reachedCount()];
+        int count = 0;
+        for (int i = 0; i < search.reachedCount(); i++) {
+            int v = search.reachedNode(i);
+            if (v != 0 && willCatchtheDisease(Math.exp(-1 * search.distance(v)), threshold)) {
+                infected[count++] = v;
+            }
+        }
+        infected = Arrays.copyOf(infected, count);
+        Arrays.sort(infected);
+        return new SpreadResult(infected, nodes, search.settledCount(), search.prunedRelaxations());
+    }
+
+    /**
+     * The infected fraction for every threshold at once: one full search
+     * from source, after which each threshold costs a binary search
+     * 
+     * @param source - an infected node that will spread the disease
+     * @return the infection curve of source
+     */
+    public InfectionCurve transfectionCurve(int source) {
+        return transfectionCurve(source, null);
+    }
+
+    /**
+     * Like transfectionCurve, evaluated as if the removed nodes had no edges
+     * 
+     * @param source  - an infected node that will spread the disease
+     * @param removed - the nodes to leave out of the spread, or null
+     * @return the infection curve of source
+     */
+    public InfectionCurve transfectionCurve(int source, BitSet removed) {
+        SingleSourceSearch search = search(graph, removed);
+        search.run(source);
+        double[] probabilities = new double[search.reachedCount()];
+        int count = 0;
+        for (int i = 0; i < search.reachedCount(); i++) {
+            int v = search.reachedNode(i);
+            if (v != 0) {
+                probabilities[count++] = Math.exp(-1 * search.distance(v));
             }
         }
-        return count / (graph.nodeCount() - 1);
+        int nodes = search.graph().nodeCount() - 1;
+        return new InfectionCurve(Arrays.copyOf(probabilities, count), nodes);
+    }
+
+    /**
+     * @param source     - an infected node that will spread the disease
+     * @param thresholds - the thresholds to evaluate
+     * @return transfectionRate(source, t) for every t in thresholds, from a
+     *         single search
+     */
+    public double[] transfectionRatesByThreshold(int source, double[] thresholds) {
+        return transfectionCurve(source).rates(thresholds);
+    }
+
+    /**
+     * The transfection rate of every node as the source, for ranking
+     * superspreaders
+     * 
+     * @param threshold
+     * @return the rates indexed by node id; entry 0 is unused
+     */
+    public double[] transfectionRates(double threshold) {
+        Graph g = graph;
+        int[] sources = new int[g.nodeCount() - 1];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = i + 1;
+        }
+        double[] rates = transfectionRates(g, sources, threshold);
+        double[] byNode = new double[g.nodeCount()];
+        System.arraycopy(rates, 0, byNode, 1, rates.length);
+        return byNode;
+    }
 
+    /**
+     * The transfection rate from each of several sources. The searches run in
+     * parallel on the common fork-join pool; each task has its own distance
+     * arrays and only reads the graph.
+     * 
+     * @param sources   - the infected nodes to evaluate, one search each
+     * @param threshold
+     * @return the rates, in the same order as sources
+     */
+    public double[] transfectionRates(int[] sources, double threshold) {
+        return transfectionRates(graph, sources, threshold);
+    }
+
+    private double[] transfectionRates(Graph g, int[] sources, double threshold) {
+        double[] rates = new double[sources.length];
+        int grain = Math.max(1, sources.length / (8 * ForkJoinPool.getCommonPoolParallelism()));
+        ForkJoinPool.commonPool().invoke(new RateTask(g, sources, threshold, rates,
+                0, sources.length, grain));
+        return rates;
+    }
+
+    /**
+     * Splits a range of sources until it is at most grain long, then runs
+     * the range with one ShortestPathSearch
+     */
+    private class RateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Graph g;
+        private final int[] sources;
+        private final double threshold;
+        private final double[] rates;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RateTask(Graph g, int[] sources, double threshold, double[] rates,
+                int from, int to, int grain) {
+            this.g = g;
+            this.sources = sources;
+            this.threshold = threshold;
+            this.rates = rates;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                ShortestPathSearch search = new ShortestPathSearch(g);
+                for (int i = from; i < to; i++) {
+                    rates[i] = transfectionRate(search, sources[i], threshold);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RateTask(g, sources, threshold, rates, from, mid, grain),
+                    new RateTask(g, sources, threshold, rates, mid, to, grain));
+        }
     }
 
     
@@ -308,10 +747,14 @@ public class InformationSpread implements IInformationSpread {
      */
     @Override
     public int degree(int n) {
-        if (n <= 0 || n > graph.nodeCount() - 1) {
+        return degree(graph, n);
+    }
+
+    private int degree(Graph g, int n) {
+        if (n <= 0 || n > g.nodeCount() - 1) {
             return -1;
         }
-        return graph.neighbors(n).length;
+        return g.degree(n);
     }
 
     /**
@@ -320,15 +763,36 @@ public class InformationSpread implements IInformationSpread {
      */
     @Override
     public Collection<Integer> degreeNodes(int d) {
+        return degreeNodes(graph, d);
+    }
+
+    private List<Integer> degreeNodes(Graph g, int d) {
         List<Integer> nodes = new ArrayList<>();
-        for (int i = 1; i < this.graph.nodeCount(); i++) {
-            if (degree(i) == d) {
+        if (d < 0) {
+            return nodes;
+        }
+        for (int i: g.nodesWithDegree(d)) {
+            if (i != 0) {
                 nodes.add(i);
             }
         }
         return nodes;
     }
 
+    /**
+     * @return the number of nodes with each degree, indexed by degree up to
+     *         the highest degree in the graph
+     */
+    public int[] degreeHistogram() {
+        Graph g = graph;
+        int[] histogram = g.degreeHistogram();
+        if (g.nodeCount() > 0) {
+            // node 0 is not part of the dataset
+            histogram[g.degree(0)]--;
+        }
+        return histogram;
+    }
+
     /**
      * Remove the nodes with the given degree
      * 
@@ -336,25 +800,35 @@ public class InformationSpread implements IInformationSpread {
      * @return the removed nodes
      */
     @Override
-    public Collection<Integer> removeNodesDegree(int d) {
-        List<Integer> nodes = (List<Integer>) degreeNodes(d);
+    public synchronized Collection<Integer> removeNodesDegree(int d) {
         Set<Integer> set = new HashSet<>();
-        set.addAll(nodes);
-        for (int node: set) {
-            for (int neighbor: getNeighbors(node)) {
-                this.graph.removeEdge(node, neighbor);
-                this.graph.removeEdge(neighbor, node);
-            }
-        }
+        set.addAll(degreeNodes(graph, d));
+        removeNodes(set);
         return set;
     }
 
+    /**
+     * Publish a copy of the graph without any edges touching the given nodes.
+     * The removed edges are skipped while copying, in O(n + m) for either
+     * representation. Callers hold the lock.
+     * 
+     * @param set - the nodes to disconnect
+     */
+    private void removeNodes(Set<Integer> set) {
+        BitSet removed = toBitSet(set);
+        // cutting every edge of a node keeps the graph symmetric if it was
+        publish(compact ? GraphCSR.copyOf(graph, removed) : GraphL.copyOf(graph, removed),
+                pointToPoint.symmetric);
+    }
+
     /**
      * Suppose a node will be infected if the probability for it to catch the
      * disease exceeds the threshold even when the node is under the best protection
      * it could have, by the best protection we meant the node will only take the
      * path of transmission with lowest probability
      *
+     * The nodes are only masked out of the search; the graph is left as it is.
+     *
      * @param source    - an infected node that will spread the disease
      * @param threshold
      * @param d         - remove nodes of degree d
@@ -363,17 +837,125 @@ public class InformationSpread implements IInformationSpread {
      */
     @Override
     public double transfectionRateDegree(int source, double threshold, int d) {
-        if (source <= 0 || source >= this.graph.nodeCount() || threshold < 0 || threshold > 1) {
+        Graph g = this.graph;
+        if (source <= 0 || source >= g.nodeCount() || threshold < 0 || threshold > 1) {
             return -1;
         }
-        Set<Integer> removedNodes = (Set<Integer>) removeNodesDegree(d);
-        if (removedNodes.contains(source)) {
+        BitSet removedNodes = toBitSet(degreeNodes(g, d));
+        if (removedNodes.get(source)) {
             return 0;
         }
-        if (removedNodes.size() == 0) {
+        if (removedNodes.isEmpty()) {
             return -1;
         }
-        return transfectionRate(source, threshold);
+        return transfectionRate(search(g, removedNodes), source, threshold);
+    }
+
+    
+    // -- independent cascade
+    /**
+     * The expected outbreak under the independent cascade model, where
+     * every edge passes the disease on with its own probability, once
+     * 
+     * @param source      - the initially infected node
+     * @param simulations - the number of cascades to simulate
+     * @return the mean and variance of the fraction of nodes infected
+     */
+    public CascadeResult simulateCascade(int source, int simulations) {
+        return simulateCascade(new int[] {source}, simulations, SAMPLE_SEED);
+    }
+
+    /**
+     * @param sources     - the initially infected nodes
+     * @param simulations - the number of cascades to simulate
+     * @param seed        - the random seed
+     * @return the mean and variance of the fraction of nodes infected
+     */
+    public CascadeResult simulateCascade(int[] sources, int simulations, long seed) {
+        return cascadeSimulator().simulate(sources, simulations, seed);
+    }
+
+    /**
+     * Pick k nodes to vaccinate so that the sources infect as few nodes as
+     * possible, by lazy greedy search over the cascade model. The graph is
+     * not modified; vaccinated nodes are only masked out while estimating.
+     * 
+     * @param sources     - the initially infected nodes
+     * @param k           - the number of nodes to vaccinate
+     * @param simulations - the number of cascades per spread estimate
+     * @return the nodes to vaccinate, most effective first
+     */
+    public SpreadSelection vaccinationTargets(int[] sources, int k, int simulations) {
+        CascadeSimulator simulator = cascadeSimulator();
+        return new SpreadOptimizer(simulator, simulations, SAMPLE_SEED)
+                .chooseVaccinations(sources, k, connectedNodes(graph));
+    }
+
+    /**
+     * Pick the k seeds that together infect the most nodes, by lazy greedy
+     * search over the cascade model
+     * 
+     * @param k           - the number of seeds
+     * @param simulations - the number of cascades per spread estimate
+     * @return the seeds, most influential first
+     */
+    public SpreadSelection influentialSeeds(int k, int simulations) {
+        CascadeSimulator simulator = cascadeSimulator();
+        return new SpreadOptimizer(simulator, simulations, SAMPLE_SEED)
+                .maximizeSeeds(k, connectedNodes(graph));
+    }
+
+    /**
+     * Sample reverse-reachable sets over the current graph, enough that
+     * spread estimates for any seed set of up to k nodes are within epsilon
+     * with probability 1 - delta. Single-seed spread and top-k seeds are
+     * then answered from the index without simulating.
+     * 
+     * @param epsilon - the additive error allowed on a spread fraction
+     * @param delta   - the probability of missing it
+     * @param k       - the largest seed set that will be asked about
+     * @return the index
+     */
+    public RRSetIndex reverseReachableIndex(double epsilon, double delta, int k) {
+        return RRSetIndex.build(graph, epsilon, delta, k, SAMPLE_SEED);
+    }
+
+    /**
+     * @param g the graph
+     * @return the nodes with at least one edge, the only ones worth trying
+     */
+    private static int[] connectedNodes(Graph g) {
+        return IntStream.range(1, g.nodeCount()).filter(v -> g.degree(v) > 0).toArray();
+    }
+
+    /**
+     * The simulator for the current graph, built once per published graph
+     * since flattening it costs as much as a few cascades
+     * 
+     * @return the simulator
+     */
+    private CascadeSimulator cascadeSimulator() {
+        Graph g = graph;
+        Cascades c = cascades;
+        if (c == null || c.graph != g) {
+            c = new Cascades(g, new CascadeSimulator(g));
+            cascades = c;
+        }
+        return c.simulator;
+    }
+
+    /**
+     * A cascade simulator together with the graph it was built from, valid
+     * for as long as graph is the same object
+     */
+    private static final class Cascades {
+        private final Graph graph;
+        private final CascadeSimulator simulator;
+
+        Cascades(Graph graph, CascadeSimulator simulator) {
+            this.graph = graph;
+            this.simulator = simulator;
+        }
     }
 
     
@@ -386,23 +968,100 @@ public class InformationSpread implements IInformationSpread {
      */
     @Override
     public double clustCoeff(int n) {
-        if (n <= 0 || n >= this.graph.nodeCount()) {
+        Graph g = graph;
+        Clustering c = clustering;
+        if (c != null && c.graph == g && n > 0 && n < g.nodeCount()) {
+            return c.values[n];
+        }
+        return clustCoeff(g, n);
+    }
+
+    /**
+     * The clustering coefficient of every node of g, computed in one
+     * parallel triangle-counting pass and kept until the graph is replaced
+     * 
+     * @param g the graph
+     * @return the coefficients indexed by node id
+     */
+    private double[] clustCoeffAll(Graph g) {
+        Clustering c = clustering;
+        if (c == null || c.graph != g) {
+            c = new Clustering(g, TriangleCounter.clusteringCoefficients(g));
+            clustering = c;
+        }
+        return c.values;
+    }
+
+    /**
+     * Clustering coefficients together with the graph they were computed on.
+     * Published graphs never change, so the values stay valid for as long
+     * as graph is the same object.
+     */
+    private static final class Clustering {
+        private final Graph graph;
+        private final double[] values;
+
+        Clustering(Graph graph, double[] values) {
+            this.graph = graph;
+            this.values = values;
+        }
+    }
+
+    private double clustCoeff(Graph g, int n) {
+        if (n <= 0 || n >= g.nodeCount()) {
             return 0;
         }
-        int numOfNeighbor = this.graph.neighbors(n).length;
+        NeighborCursor outer = g.neighborCursor();
+        int numOfNeighbor = 0;
+        outer.reset(n);
+        while (outer.next()) {
+            numOfNeighbor++;
+        }
         if (numOfNeighbor <= 1) {
             return 0;
         }
         int totalConnections = numOfNeighbor * (numOfNeighbor - 1) / 2;
         int connections = 0;
-        for (int v: this.graph.neighbors(n)) {
-            for (int w: this.graph.neighbors(n)) {
-                if (v != w && this.graph.hasEdge(v, w)) {
-                    connections++;
+        NeighborCursor mine = g.neighborCursor();
+        NeighborCursor theirs = g.neighborCursor();
+        outer.reset(n);
+        while (outer.next()) {
+            int v = outer.target();
+            mine.reset(n);
+            theirs.reset(v);
+            connections += commonNeighbors(mine, theirs, v);
+        }
+        return (connections / 2.0) / totalConnections;
+    }
+
+    /**
+     * Count the ids shared by two sorted neighbor walks with a merge,
+     * leaving out skip
+     * @param a
+     * @param b
+     * @param skip
+     * @return the number of common neighbors other than skip
+     */
+    private int commonNeighbors(NeighborCursor a, NeighborCursor b, int skip) {
+        int common = 0;
+        boolean moreA = a.next();
+        boolean moreB = b.next();
+        while (moreA && moreB) {
+            int x = a.target();
+            int y = b.target();
+            if (x < y) {
+                moreA = a.next();
+            } else if (x > y) {
+                moreB = b.next();
+            } else {
+                if (x != skip) {
+                    common++;
                 }
+                moreA = a.next();
+                moreB = b.next();
             }
         }
-        return (connections / 2.0) / totalConnections;
+        return common;
     }
 
     /**
@@ -415,12 +1074,17 @@ public class InformationSpread implements IInformationSpread {
      */
     @Override
     public Collection<Integer> clustCoeffNodes(double low, double high) {
+        return clustCoeffNodes(graph, low, high);
+    }
+
+    private List<Integer> clustCoeffNodes(Graph g, double low, double high) {
         List<Integer> nodes = new ArrayList<>();
         if (low < 0 || high < 0 || high > 1 || high < low) {
             return nodes;
         }
-        for (int i = 1; i < this.graph.nodeCount(); i++) {
-            double cc = clustCoeff(i);
+        double[] all = clustCoeffAll(g);
+        for (int i = 1; i < g.nodeCount(); i++) {
+            double cc = all[i];
             if ((int) (cc * 100) >= (int) (low * 100) && (int) (cc * 100) <= (int) (high * 100)) {
                 nodes.add(i);
             }
@@ -428,6 +1092,49 @@ public class InformationSpread implements IInformationSpread {
         return nodes;
     }
 
+    /**
+     * Estimate the clustering coefficient of n from a sample of its neighbor
+     * pairs. Low-degree nodes are computed exactly; for hubs the work is
+     * bounded by the sample size instead of the square of the degree.
+     *
+     * @param n          - the node
+     * @param epsilon    - the half width of the confidence interval
+     * @param confidence - the probability that the interval holds the true cc
+     * @return the estimate with its confidence interval
+     */
+    public ClusteringEstimate clustCoeffApprox(int n, double epsilon, double confidence) {
+        return new ClusteringSampler(graph, epsilon, confidence, SAMPLE_SEED).estimate(n);
+    }
+
+    /**
+     * Sampled version of clustCoeffNodes, with the same 0.01 precision
+     * applied to the point estimates. Check meetsPrecision() on an estimate
+     * to see whether its interval could still fall on the other side of a
+     * bound.
+     *
+     * @param low        - the lower bound (inclusive) of the cc range
+     * @param high       - the upper bound (inclusive) of the cc range
+     * @param epsilon    - the half width of the confidence interval
+     * @param confidence - the probability that the interval holds the true cc
+     * @return the estimates of the nodes within [low, high], by node id
+     */
+    public Map<Integer, ClusteringEstimate> clustCoeffNodesApprox(double low, double high,
+            double epsilon, double confidence) {
+        Map<Integer, ClusteringEstimate> nodes = new TreeMap<>();
+        if (low < 0 || high < 0 || high > 1 || high < low) {
+            return nodes;
+        }
+        ClusteringEstimate[] all =
+                new ClusteringSampler(graph, epsilon, confidence, SAMPLE_SEED).estimateAll();
+        for (int i = 1; i < all.length; i++) {
+            double cc = all[i].value();
+            if ((int) (cc * 100) >= (int) (low * 100) && (int) (cc * 100) <= (int) (high * 100)) {
+                nodes.put(i, all[i]);
+            }
+        }
+        return nodes;
+    }
+
     /**
      * Remove the nodes with clustering coefficients within the given range
      *
@@ -436,16 +1143,10 @@ public class InformationSpread implements IInformationSpread {
      * @return the removed nodes
      */
     @Override
-    public Collection<Integer> removeNodesCC(double low, double high) {
-        List<Integer> nodes = (List<Integer>) clustCoeffNodes(low, high);
+    public synchronized Collection<Integer> removeNodesCC(double low, double high) {
         Set<Integer> set = new HashSet<>();
-        set.addAll(nodes);
-        for (int node: set) {
-            for (int neighbor: this.graph.neighbors(node)) {
-                this.graph.removeEdge(node, neighbor);
-                this.graph.removeEdge(neighbor, node);
-            }
-        }
+        set.addAll(clustCoeffNodes(graph, low, high));
+        removeNodes(set);
         return set;
     }
 
@@ -455,6 +1156,8 @@ public class InformationSpread implements IInformationSpread {
      * it could have, by the best protection we meant the node will only take the
      * path of transmission with lowest probability
      *
+     * Uses a removal mask, so the loaded graph stays intact.
+     *
      * @param source    - an infected node that will spread the disease
      * @param threshold - an infected node that will spread the disease
      * @param low       - remove nodes of degree d
@@ -464,17 +1167,18 @@ public class InformationSpread implements IInformationSpread {
      */
     @Override
     public double transfectionRateCC(int source, double threshold, double low, double high) {
-        if (source <= 0 || source >= this.graph.nodeCount() 
+        Graph g = this.graph;
+        if (source <= 0 || source >= g.nodeCount() 
                 || low < 0 || high < 0 || high > 1 || threshold < 0 || threshold > 1) {
             return -1;
         }
-        Set<Integer> removedNodes = (Set<Integer>) removeNodesCC(low, high);
-        if (removedNodes.contains(source)) {
+        BitSet removedNodes = toBitSet(clustCoeffNodes(g, low, high));
+        if (removedNodes.get(source)) {
             return 0;
-        } else if (removedNodes.size() == 0) {
+        } else if (removedNodes.isEmpty()) {
             return -1;
         }
-        return transfectionRate(source, threshold);
+        return transfectionRate(search(g, removedNodes), source, threshold);
     }
 
     
@@ -485,15 +1189,10 @@ public class InformationSpread implements IInformationSpread {
      * @param vaccinated - a collection of nodes getting the vaccination
      */
     @Override
-    public void removeVaccinated(Collection<Integer> vaccinated) {
+    public synchronized void removeVaccinated(Collection<Integer> vaccinated) {
         Set<Integer> set = new HashSet<>();
         set.addAll(vaccinated);
-        for (int node: set) {
-            for (int neighbor: this.graph.neighbors(node)) {
-                this.graph.removeEdge(node, neighbor);
-                this.graph.removeEdge(neighbor, node);
-            }
-        }
+        removeNodes(set);
     }
 
     /**
@@ -502,6 +1201,8 @@ public class InformationSpread implements IInformationSpread {
      * it could have, by the best protection we meant the node will only take the
      * path of transmission with lowest probability
      *
+     * The vaccinated nodes are masked out of the search, not deleted.
+     *
      * @param source     - an infected node that will spread the disease
      * @param threshold  - an infected node that will spread the disease
      * @param vaccinated - vaccinated population in the group
@@ -512,11 +1213,11 @@ public class InformationSpread implements IInformationSpread {
     @Override
     public double transfectionRateVaccine(int source, 
             double threshold, Collection<Integer> vaccinated) {
-        if (source <= 0 || source >= this.graph.nodeCount() || vaccinated.contains(source) 
+        Graph g = this.graph;
+        if (source <= 0 || source >= g.nodeCount() || vaccinated.contains(source) 
                 || vaccinated.size() == 0 || threshold < 0 || threshold > 1) {
             return -1;
         }
-        removeVaccinated(vaccinated);
-        return transfectionRate(source, threshold);
+        return transfectionRate(search(g, toBitSet(vaccinated)), source, threshold);
     }
 }
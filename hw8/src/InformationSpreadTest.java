@@ -1,6 +1,12 @@
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -185,4 +191,878 @@ public class InformationSpreadTest {
         assertEquals(0.43, inf.transfectionRateVaccine(1, 0.15, immunized), 0.01);
     }
 
+    @Test
+    public void testCompactGraph() {
+        InformationSpread csr = new InformationSpread(true);
+        assertEquals(7, csr.loadGraphFromDataSet(root + "test1.mtx"));
+        inf.loadGraphFromDataSet(root + "test1.mtx");
+        for (int i = 1; i <= 7; i++) {
+            assertArrayEquals(inf.getNeighbors(i), csr.getNeighbors(i));
+            assertEquals(inf.degree(i), csr.degree(i));
+            assertEquals(inf.clustCoeff(i), csr.clustCoeff(i), 0.0001);
+        }
+        assertEquals(0.86, csr.transfectionRate(1, 0.15), 0.01);
+        assertEquals(0.29, csr.transfectionRateDegree(1, 0.15, 3), 0.01);
+    }
+
+    @Test
+    public void testGraphCSRAddRemoveEdge() {
+        GraphCSR g = new GraphCSR();
+        g.init(4);
+        g.addEdge(1, 3, 0.5);
+        g.addEdge(1, 2, 0.25);
+        g.addEdge(2, 1, 0.25);
+        g.addEdge(1, 3, 0.75);
+        assertEquals(3, g.edgeCount());
+        assertArrayEquals(new int[] {2, 3}, g.neighbors(1));
+        assertEquals(0.75, g.weight(1, 3), 0);
+        g.removeEdge(1, 2);
+        assertFalse(g.hasEdge(1, 2));
+        assertEquals(1, g.degree(1));
+        assertEquals(2, g.edgeCount());
+    }
+
+    @Test
+    public void testNeighborCursor() {
+        GraphCSR.Builder builder = new GraphCSR.Builder(4);
+        builder.addEdge(1, 3, 0.5);
+        builder.addEdge(1, 2, 0.25);
+        builder.addEdge(2, 1, 0.25);
+        Graph[] graphs = {builder.build(), builder.addTo(new GraphL()),
+            GraphL.copyOf(builder.build())};
+        for (Graph g: graphs) {
+            NeighborCursor cursor = g.neighborCursor();
+            cursor.reset(1);
+            assertTrue(cursor.next());
+            assertEquals(2, cursor.target());
+            assertEquals(0.25, cursor.weight(), 0);
+            assertTrue(cursor.next());
+            assertEquals(3, cursor.target());
+            assertEquals(0.5, cursor.weight(), 0);
+            assertFalse(cursor.next());
+            cursor.reset(1);
+            assertTrue(cursor.skipTo(3));
+            assertEquals(3, cursor.target());
+            assertEquals(0.5, cursor.weight(), 0);
+            assertFalse(cursor.skipTo(4));
+            cursor.reset(1);
+            assertTrue(cursor.skipTo(2));
+            assertEquals(2, cursor.target());
+            assertTrue(cursor.skipTo(3));
+            assertEquals(3, cursor.target());
+            cursor.reset(3);
+            assertFalse(cursor.next());
+            assertEquals(3, g.edgeCount());
+            assertArrayEquals(new int[] {1}, g.nodesWithDegree(2));
+        }
+    }
+
+    @Test
+    public void testIndexedMinHeap() {
+        double[] keys = {5, 3, 8, 1, 9};
+        IndexedMinHeap heap = new IndexedMinHeap(keys);
+        for (int v = 0; v < keys.length; v++) {
+            heap.push(v);
+        }
+        heap.push(4);
+        assertEquals(5, heap.size());
+        keys[4] = 0;
+        heap.decreaseKey(4);
+        assertEquals(4, heap.poll());
+        assertEquals(3, heap.poll());
+        assertEquals(1, heap.poll());
+        assertFalse(heap.contains(1));
+        assertTrue(heap.contains(2));
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(2));
+    }
+
+    @Test
+    public void testLongestTransmissionPathUnreachable() {
+        inf.loadGraphFromDataSet(root + "test.mtx");
+        inf.removeVaccinated(Arrays.asList(3));
+        assertEquals(Arrays.asList(1, 4, 5), new ArrayList<>(inf.longestTransmissionPath(1, 5)));
+        inf.removeVaccinated(Arrays.asList(2, 4));
+        assertTrue(inf.longestTransmissionPath(1, 5).isEmpty());
+    }
+
+    @Test
+    public void testLoadMatrixMarketHeader() throws IOException {
+        InformationSpread banner = new InformationSpread();
+        assertEquals(5, banner.loadGraphFromDataSet(root + "test2.mtx"));
+        inf.loadGraphFromDataSet(root + "test.mtx");
+        for (int i = 1; i <= 5; i++) {
+            assertArrayEquals(inf.getNeighbors(i), banner.getNeighbors(i));
+        }
+        assertEquals(0.8, banner.transfectionRate(1, 0.15), 0.01);
+        assertEquals(0.6, banner.transfectionRate(1, 0.16), 0.01);
+
+        // a sign without digits, or a comment where p belongs, is malformed
+        String[][] malformed = {{"3 1", "- 2 0.5"}, {"3 1", "1 + 0.5"}, {"3 1", "1 2 % note"},
+            {"3 % note", "1 2 0.5"}};
+        for (String[] lines: malformed) {
+            try {
+                MtxLoader.load(writeMtx(lines));
+                fail("malformed line accepted: " + Arrays.toString(lines));
+            } catch (IOException expected) {
+                // reported with its byte offset
+            }
+        }
+        assertEquals(2, MtxLoader.load(writeMtx("3 1", "1 2 0.5 % note")).build().edgeCount());
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        File snapshot = File.createTempFile("graph", ".snap");
+        snapshot.deleteOnExit();
+        inf.loadGraphFromDataSet(root + "test1.mtx");
+        inf.saveSnapshot(snapshot.getPath(), root + "test1.mtx");
+
+        InformationSpread restored = new InformationSpread(true);
+        assertEquals(7, restored.loadGraphFromSnapshot(snapshot.getPath(), root + "test1.mtx"));
+        for (int i = 1; i <= 7; i++) {
+            assertArrayEquals(inf.getNeighbors(i), restored.getNeighbors(i));
+        }
+        assertEquals(0.86, restored.transfectionRate(1, 0.15), 0.01);
+        InformationSpread fresh = new InformationSpread();
+        assertEquals(7, fresh.loadGraphFromDataSet(root + "test1.mtx", snapshot.getPath()));
+
+        try {
+            restored.loadGraphFromSnapshot(snapshot.getPath(), root + "test.mtx");
+            fail("snapshot of another file accepted");
+        } catch (IOException expected) {
+            // stale
+        }
+        try (RandomAccessFile f = new RandomAccessFile(snapshot, "rw")) {
+            f.seek(f.length() - 1);
+            int last = f.read();
+            f.seek(f.length() - 1);
+            f.write(last ^ 1);
+        }
+        try {
+            restored.loadGraphFromSnapshot(snapshot.getPath(), null);
+            fail("corrupt snapshot accepted");
+        } catch (IOException expected) {
+            // checksum
+        }
+
+        // a stale snapshot and a file that does not parse: fail, keep both
+        inf.saveSnapshot(snapshot.getPath(), root + "test1.mtx");
+        long saved = snapshot.length();
+        String broken = writeMtx("3 1", "1 x 0.5");
+        try {
+            restored.loadGraphFromDataSet(broken, snapshot.getPath());
+            fail("malformed file loaded");
+        } catch (IOException expected) {
+            // not saved over the old snapshot
+        }
+        assertEquals(saved, snapshot.length());
+        assertArrayEquals(inf.getNeighbors(1), restored.getNeighbors(1));
+        assertEquals(7, restored.loadGraphFromSnapshot(snapshot.getPath(), root + "test1.mtx"));
+        File[] left = snapshot.getParentFile().listFiles((dir, name) ->
+                name.startsWith(snapshot.getName()) && name.endsWith(".tmp"));
+        assertEquals(0, left.length);
+    }
+
+    @Test
+    public void testTransfectionRates() {
+        inf.loadGraphFromDataSet(root + "test1.mtx");
+        double[] rates = inf.transfectionRates(0.15);
+        assertEquals(8, rates.length);
+        for (int i = 1; i <= 7; i++) {
+            assertEquals(inf.transfectionRate(i, 0.15), rates[i], 0);
+        }
+        rates = inf.transfectionRates(new int[] {3, 1}, 0.15);
+        assertEquals(inf.transfectionRate(3, 0.15), rates[0], 0);
+        assertEquals(0.86, rates[1], 0.01);
+    }
+
+    @Test
+    public void testTransfectionSpread() {
+        inf.loadGraphFromDataSet(root + "test1.mtx");
+        SpreadResult result = inf.transfectionSpread(1, 0.15);
+        assertEquals(inf.transfectionRate(1, 0.15), result.rate(), 0);
+        assertEquals(6, result.count());
+        assertArrayEquals(new int[] {1, 3, 4, 5, 6, 7}, result.infected());
+        assertEquals(7, result.settled() + result.skipped());
+
+        result = inf.transfectionSpread(1, 0.5);
+        assertArrayEquals(new int[] {1, 7}, result.infected());
+        assertTrue(result.skipped() > 0);
+        assertTrue(result.prunedRelaxations() > 0);
+        assertEquals(1, inf.transfectionSpread(1, 0).rate(), 0);
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        inf.loadGraphFromDataSet(root + "./test1.mtx");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<Double>> rates = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rates.add(pool.submit(() -> inf.transfectionRate(1, 0.15)));
+            if (i == 100) {
+                inf.removeVaccinated(Arrays.asList(2, 3, 4));
+            }
+        }
+        for (Future<Double> rate: rates) {
+            double r = rate.get();
+            assertTrue(Math.abs(r - 0.86) < 0.01 || Math.abs(r - 0.43) < 0.01);
+        }
+        pool.shutdown();
+        assertEquals(0.43, inf.transfectionRate(1, 0.15), 0.01);
+    }
+
+    @Test
+    public void testRemovalOverlay() {
+        inf.loadGraphFromDataSet(root + "./test1.mtx");
+        assertEquals(0.29, inf.transfectionRateDegree(1, 0.15, 3), 0.01);
+        assertEquals(0.57, inf.transfectionRateDegree(1, 0.15, 2), 0.01);
+        assertEquals(0.43, inf.transfectionRateVaccine(1, 0.15, Arrays.asList(2, 3, 4)), 0.01);
+        assertEquals(0.86, inf.transfectionRate(1, 0.15), 0.01);
+        assertEquals(5, inf.degree(1));
+        assertEquals(1, inf.degreeNodes(2).size());
+
+        BitSet removed = new BitSet();
+        removed.set(3);
+        assertEquals(0.57, inf.transfectionRate(1, 0.15, removed), 0.01);
+        assertArrayEquals(new int[] {1, 4, 6, 7},
+                inf.transfectionSpread(1, 0.15, removed).infected());
+        removed.set(1);
+        assertEquals(0, inf.transfectionRate(1, 0.15, removed), 0);
+    }
+
+    @Test
+    public void testTriangleCounter() {
+        GraphCSR.Builder builder = new GraphCSR.Builder(6);
+        int[][] edges = { {1, 2}, {1, 3}, {2, 3}, {2, 4}, {3, 4}, {4, 5} };
+        for (int[] e: edges) {
+            builder.addEdge(e[0], e[1], 1);
+            builder.addEdge(e[1], e[0], 1);
+        }
+        assertArrayEquals(new long[] {0, 1, 2, 2, 1, 0}, TriangleCounter.count(builder.build()));
+
+        inf.loadGraphFromDataSet(root + "./test1.mtx");
+        double[] expected = new double[8];
+        for (int i = 1; i <= 7; i++) {
+            expected[i] = inf.clustCoeff(i);
+        }
+        assertEquals(2, inf.clustCoeffNodes(0, 0.2).size());
+        for (int i = 1; i <= 7; i++) {
+            assertEquals(expected[i], inf.clustCoeff(i), 0);
+        }
+    }
+
+    @Test
+    public void testClustCoeffApprox() {
+        inf.loadGraphFromDataSet(root + "./test1.mtx");
+        for (int i = 1; i <= 7; i++) {
+            ClusteringEstimate e = inf.clustCoeffApprox(i, 0.05, 0.95);
+            assertTrue(e.isExact());
+            assertEquals(inf.clustCoeff(i), e.value(), 1e-12);
+        }
+        assertEquals(inf.clustCoeffNodes(0, 0.2).size(),
+                inf.clustCoeffNodesApprox(0, 0.2, 0.05, 0.95).size());
+
+        // a star with every other leaf pair joined: cc of the hub is 0.5
+        GraphCSR.Builder builder = new GraphCSR.Builder(202);
+        for (int v = 2; v < 202; v++) {
+            builder.addEdge(1, v, 0.5);
+            builder.addEdge(v, 1, 0.5);
+        }
+        for (int v = 2; v < 202; v += 2) {
+            for (int w = v + 2; w < 202; w += 2) {
+                builder.addEdge(v, w, 0.5);
+                builder.addEdge(w, v, 0.5);
+            }
+        }
+        for (int v = 3; v < 202; v += 2) {
+            for (int w = v + 2; w < 202; w += 2) {
+                builder.addEdge(v, w, 0.5);
+                builder.addEdge(w, v, 0.5);
+            }
+        }
+        ClusteringSampler sampler = new ClusteringSampler(builder.build(), 0.02, 0.99, 7);
+        ClusteringEstimate hub = sampler.estimate(1);
+        assertFalse(hub.isExact());
+        assertEquals(sampler.samplesPerNode(), hub.samples());
+        assertTrue(hub.lower() <= hub.value() && hub.value() <= hub.upper());
+        assertEquals(0.4975, hub.value(), 0.05);
+    }
+
+    @Test
+    public void testDegreeIndex() {
+        DegreeIndex index = new DegreeIndex(new int[] {0, 2, 1, 2, 0});
+        assertArrayEquals(new int[] {1, 3}, index.nodes(2));
+        assertArrayEquals(new int[] {2, 1, 2}, index.histogram());
+        index.increment(2);
+        index.decrement(1);
+        assertArrayEquals(new int[] {1}, index.nodes(1));
+        assertArrayEquals(new int[] {2, 3}, index.nodes(2));
+        index.decrement(2);
+        index.decrement(3);
+        index.decrement(3);
+        assertEquals(1, index.maxDegree());
+        assertEquals(0, index.nodes(5).length);
+        // buckets filled out of order come back sorted, also when listed again
+        assertArrayEquals(new int[] {1, 2}, index.nodes(1));
+        assertArrayEquals(new int[] {0, 3, 4}, index.nodes(0));
+        assertArrayEquals(new int[] {0, 3, 4}, index.nodes(0));
+        index.increment(4);
+        index.increment(0);
+        assertArrayEquals(new int[] {0, 1, 2, 4}, index.nodes(1));
+        assertArrayEquals(new int[] {3}, index.nodes(0));
+        assertEquals(1, index.maxDegree());
+        index.increment(1);
+        assertEquals(2, index.maxDegree());
+        assertArrayEquals(new int[] {1, 3, 1}, index.histogram());
+
+        GraphL g = new GraphL();
+        g.init(4);
+        g.addEdge(1, 2, 0.5);
+        g.addEdge(1, 2, 0.7);
+        g.addEdge(1, 3, 0.5);
+        assertEquals(2, g.edgeCount());
+        assertEquals(2, g.degree(1));
+        g.removeEdge(1, 2);
+        g.removeEdge(1, 2);
+        assertEquals(1, g.edgeCount());
+        assertArrayEquals(new int[] {0, 2, 3}, g.nodesWithDegree(0));
+
+        inf.loadGraphFromDataSet(root + "./test1.mtx");
+        int[] histogram = inf.degreeHistogram();
+        for (int d = 0; d < histogram.length; d++) {
+            assertEquals(histogram[d], inf.degreeNodes(d).size());
+        }
+        assertEquals(7, Arrays.stream(histogram).sum());
+        Collection<Integer> removed = inf.removeNodesDegree(2);
+        assertEquals(Arrays.asList(3), new ArrayList<>(removed));
+        assertEquals(0, inf.degree(3));
+        assertTrue(inf.degreeNodes(0).contains(3));
+    }
+
+    @Test
+    public void testRemoveNodesBulk() {
+        GraphCSR.Builder builder = new GraphCSR.Builder(6);
+        int[][] edges = { {1, 2}, {1, 3}, {2, 3}, {2, 4}, {3, 4}, {4, 5} };
+        for (int[] e: edges) {
+            builder.addEdge(e[0], e[1], 0.5);
+            builder.addEdge(e[1], e[0], 0.5);
+        }
+        BitSet removed = new BitSet();
+        removed.set(2);
+        removed.set(5);
+        Graph full = builder.build();
+        Graph[] copies = { GraphCSR.copyOf(full, removed), GraphL.copyOf(full, removed),
+            GraphL.copyOf(GraphL.copyOf(full), removed) };
+        for (Graph g: copies) {
+            assertEquals(4, g.edgeCount());
+            assertArrayEquals(new int[] {3}, g.neighbors(1));
+            assertArrayEquals(new int[] {1, 4}, g.neighbors(3));
+            assertArrayEquals(new int[] {3}, g.neighbors(4));
+            assertEquals(0, g.neighbors(2).length);
+            assertArrayEquals(new int[] {0, 2, 5}, g.nodesWithDegree(0));
+            assertEquals(0.5, g.weight(4, 3), 0);
+        }
+        assertEquals(12, full.edgeCount());
+    }
+
+    @Test
+    public void testSpanningForest() {
+        inf.loadGraphFromDataSet(root + "test.mtx");
+        Collection<Edge> col = inf.maxSpanningTreeKruskal();
+        assertEquals(4, col.size());
+        assertTrue(col.contains(new Edge(3, 5)));
+        assertTrue(col.contains(new Edge(2, 5)));
+        assertTrue(col.contains(new Edge(4, 5)));
+        assertTrue(col.contains(new Edge(1, 3)));
+
+        // two components with distinct weights, checked against a sorted Kruskal
+        Random rnd = new Random(11);
+        int n = 301;
+        GraphCSR.Builder builder = new GraphCSR.Builder(n);
+        Set<Long> seen = new HashSet<>();
+        List<double[]> edges = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            int u = 1 + rnd.nextInt(n - 1);
+            int v = 1 + rnd.nextInt(n - 1);
+            long pair = (long) Math.min(u, v) * n + Math.max(u, v);
+            if (u / 150 != v / 150 || u == v || !seen.add(pair)) {
+                continue;
+            }
+            double w = rnd.nextDouble() + 0.01;
+            builder.addEdge(u, v, w);
+            builder.addEdge(v, u, w);
+            edges.add(new double[] {u, v, w});
+        }
+        edges.sort((a, b) -> Double.compare(a[2], b[2]));
+        UnionFind uf = new UnionFind(n);
+        double expected = 0;
+        int expectedSize = 0;
+        for (double[] e: edges) {
+            if (uf.union((int) e[0], (int) e[1])) {
+                expected += e[2];
+                expectedSize++;
+            }
+        }
+        SpanningForest forest = new SpanningForest(builder.build());
+        assertEquals(expectedSize, forest.size());
+        double total = 0;
+        for (int i = 0; i < forest.size(); i++) {
+            total += forest.weight(i);
+            assertTrue(i == 0 || forest.weight(i - 1) <= forest.weight(i));
+        }
+        assertEquals(expected, total, 1e-9);
+
+        UnionFind chain = new UnionFind(1 << 20);
+        for (int i = 1; i < 1 << 20; i++) {
+            chain.union(i, i - 1);
+        }
+        assertEquals(1, chain.count());
+        assertTrue(chain.connected(0, (1 << 20) - 1));
+    }
+
+    @Test
+    public void testPrimForest() throws IOException {
+        inf.loadGraphFromDataSet(root + "test1.mtx");
+        int[] parent = inf.maxSpanningTreePrim();
+        assertEquals(1, parent[1]);
+        Collection<Edge> kruskal = inf.maxSpanningTreeKruskal();
+        assertEquals(6, kruskal.size());
+        for (int v = 2; v < parent.length; v++) {
+            assertTrue(kruskal.contains(new Edge(parent[v], v)));
+        }
+
+        // 1-2-3 and 4-5 are separate components, 6 has no edges
+        inf.loadGraphFromDataSet(writeMtx("6 3", "1 2 0.5", "2 3 0.4", "4 5 0.3"));
+        parent = inf.maxSpanningTreePrim();
+        assertArrayEquals(new int[] {0, 1, 1, 2, 4, 4, 6}, parent);
+    }
+
+    @Test
+    public void testGraphGenerator() throws IOException {
+        GraphGenerator.Shape[] shapes = GraphGenerator.Shape.values();
+        String[] distributions = {GraphGenerator.UNIFORM, GraphGenerator.EXPONENTIAL,
+            GraphGenerator.FIXED};
+        for (int s = 0; s < shapes.length; s++) {
+            GraphGenerator.Shape shape = shapes[s];
+            GraphGenerator generator = new GraphGenerator(shape, 500, 6, distributions[s % 3], 3);
+            long[] emitted = new long[1];
+            generator.generate((u, v, p) -> {
+                assertTrue(u >= 1 && u <= 500 && v >= 1 && v <= 500 && u != v);
+                assertTrue(p > 0 && p < 1);
+                emitted[0]++;
+            });
+            assertEquals(generator.edgeCount(), emitted[0]);
+
+            File file = File.createTempFile("generated", ".mtx");
+            file.deleteOnExit();
+            generator.writeMtx(file.getPath());
+            InformationSpread loaded = new InformationSpread(true);
+            assertEquals(500, loaded.loadGraphFromDataSet(file.getPath()));
+            Graph built = generator.toBuilder().build();
+            for (int v = 1; v <= 500; v++) {
+                assertArrayEquals(built.neighbors(v), loaded.getNeighbors(v));
+            }
+            int loadedEdges = IntStream.rangeClosed(1, 500).map(loaded::degree).sum();
+            assertEquals(built.edgeCount(), loadedEdges);
+            assertTrue(loadedEdges <= 2 * generator.edgeCount());
+            assertEquals(shape, GraphGenerator.Shape.parse(shape.key()));
+            assertEquals(shape, GraphGenerator.Shape.parse(shape.name().toLowerCase()));
+        }
+        try {
+            GraphGenerator.Shape.parse("tree");
+            fail("unknown shape parsed");
+        } catch (IllegalArgumentException expected) {
+            // the command-line tools report this
+        }
+    }
+
+    @Test
+    public void testCascadeSimulator() throws IOException {
+        inf.loadGraphFromDataSet(writeMtx("2 1", "1 2 0.3"));
+        // node 2 is infected in 30% of the runs: fraction 1 / 2 or 2 / 2
+        CascadeResult result = inf.simulateCascade(1, 20000);
+        assertEquals(20000, result.simulations());
+        assertEquals(0.65, result.mean(), 0.01);
+        assertEquals(0.0525, result.variance(), 0.005);
+        assertEquals(result.mean(), inf.simulateCascade(1, 20000).mean(), 0);
+
+        GraphCSR.Builder builder = new GraphCSR.Builder(3);
+        builder.addEdge(1, 2, -Math.log(0.3));
+        builder.addEdge(2, 1, -Math.log(0.3));
+        CascadeSimulator simulator = new CascadeSimulator(builder.build());
+        BitSet removed = new BitSet();
+        removed.set(2);
+        assertEquals(0.5, simulator.simulate(new int[] {1}, 500, 1, removed).mean(), 0);
+        assertEquals(0, simulator.simulate(new int[] {1}, 0, 1).simulations());
+
+        inf.loadGraphFromDataSet(root + "test1.mtx");
+        double all = inf.simulateCascade(new int[] {1, 2, 3, 4, 5, 6, 7}, 100, 5).mean();
+        assertEquals(1, all, 0);
+    }
+
+    @Test
+    public void testSpreadOptimizer() throws IOException {
+        // a star around 1 and a separate pair 7-8
+        inf.loadGraphFromDataSet(writeMtx("8 6", "1 2 0.9", "1 3 0.9", "1 4 0.9", "1 5 0.9",
+                "1 6 0.9", "7 8 0.9"));
+
+        SpreadSelection seeds = inf.influentialSeeds(2, 2000);
+        assertEquals(2, seeds.size());
+        assertEquals(1, seeds.nodes()[0]);
+        assertTrue(seeds.nodes()[1] == 7 || seeds.nodes()[1] == 8);
+        assertTrue(seeds.spread(1) > seeds.spread(0));
+        assertTrue(seeds.evaluations() < 2 * 8);
+
+        SpreadSelection vaccinated = inf.vaccinationTargets(new int[] {2}, 1, 2000);
+        assertArrayEquals(new int[] {1}, vaccinated.nodes());
+        assertEquals(1 / 8.0, vaccinated.finalSpread(), 1e-9);
+        assertTrue(vaccinated.initialSpread() > 0.5);
+        assertEquals(8, inf.degree(1) + inf.degree(7) + inf.degree(8) + 1);
+
+        assertEquals(0, inf.influentialSeeds(0, 100).size());
+        try {
+            inf.influentialSeeds(-1, 100);
+            fail("negative k accepted");
+        } catch (IllegalArgumentException expected) {
+            // k < 0
+        }
+    }
+
+    @Test
+    public void testRRSetIndex() throws IOException {
+        inf.loadGraphFromDataSet(writeMtx("8 6", "1 2 0.9", "1 3 0.9", "1 4 0.9", "1 5 0.9",
+                "1 6 0.9", "7 8 0.9"));
+        RRSetIndex index = inf.reverseReachableIndex(0.02, 0.01, 2);
+        assertEquals(RRSetIndex.samplesFor(0.02, 0.01, 8, 2), index.sets());
+
+        // agrees with the cascade simulation within epsilon
+        for (int s = 1; s <= 8; s++) {
+            double simulated = inf.simulateCascade(new int[] {s}, 20000, 3).mean();
+            assertEquals(simulated, index.expectedSpread(s), 0.02);
+        }
+        assertEquals(index.expectedSpread(1) * 8, index.expectedInfections(1), 1e-9);
+
+        SpreadSelection seeds = index.topSeeds(2);
+        assertEquals(1, seeds.nodes()[0]);
+        assertTrue(seeds.nodes()[1] == 7 || seeds.nodes()[1] == 8);
+        assertEquals(index.expectedSpread(seeds.nodes()), seeds.finalSpread(), 1e-12);
+        assertEquals(inf.influentialSeeds(2, 5000).finalSpread(), seeds.finalSpread(), 0.03);
+    }
+
+    @Test
+    public void testInfectionCurve() {
+        inf.loadGraphFromDataSet(root + "test1.mtx");
+        double[] thresholds = new double[101];
+        for (int i = 0; i <= 100; i++) {
+            thresholds[i] = i / 100.0;
+        }
+        for (int source = 1; source <= 7; source++) {
+            double[] rates = inf.transfectionRatesByThreshold(source, thresholds);
+            for (int i = 0; i <= 100; i++) {
+                assertEquals(inf.transfectionRate(source, thresholds[i]), rates[i], 0);
+            }
+        }
+        InfectionCurve curve = inf.transfectionCurve(1);
+        double[] p = curve.probabilities();
+        assertEquals(7, curve.reachable());
+        assertEquals(1, p[0], 0);
+        for (int i = 1; i < p.length; i++) {
+            assertTrue(p[i] <= p[i - 1]);
+            assertTrue(curve.count(p[i]) >= i + 1);
+        }
+
+        BitSet removed = new BitSet();
+        removed.set(3);
+        assertEquals(inf.transfectionRate(1, 0.15, removed),
+                inf.transfectionCurve(1, removed).rate(0.15), 0);
+    }
+
+    @Test
+    public void testPathTreeCache() {
+        inf.loadGraphFromDataSet(root + "test1.mtx");
+        PathTreeCache cache = inf.pathTreeCache();
+        assertEquals(Arrays.asList(1, 3, 5), new ArrayList<>(inf.longestTransmissionPath(1, 5)));
+        for (int d = 2; d <= 7; d++) {
+            inf.longestTransmissionPath(1, d);
+        }
+        assertEquals(1, cache.misses());
+        assertEquals(6, cache.hits());
+
+        // a new graph drops the trees computed on the old one
+        inf.removeVaccinated(Arrays.asList(3));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+        assertEquals(Arrays.asList(1, 4, 5), new ArrayList<>(inf.longestTransmissionPath(1, 5)));
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.invalidations());
+        assertEquals(1, cache.size());
+
+        // room for two trees: the least recently used one goes
+        GraphCSR.Builder builder = new GraphCSR.Builder(5);
+        for (int v = 1; v < 4; v++) {
+            builder.addEdge(v, v + 1, 0.5);
+        }
+        Graph g = builder.build();
+        ShortestPathTree first = new PathTreeCache(1 << 20).tree(g, 1);
+        assertArrayEquals(new int[] {1, 2, 3, 4}, first.path(4));
+        assertEquals(0, first.path(0).length);
+        PathTreeCache small = new PathTreeCache(2 * first.bytes());
+        small.tree(g, 1);
+        small.tree(g, 2);
+        small.tree(g, 1);
+        small.tree(g, 3);
+        assertEquals(1, small.hits());
+        assertEquals(1, small.evictions());
+        assertEquals(2, small.size());
+        small.tree(g, 1);
+        assertEquals(2, small.hits());
+        assertArrayEquals(new int[0], small.tree(g, 3).path(1));
+        assertEquals(3, small.hits());
+    }
+
+    @Test
+    public void testPointToPointSearch() throws IOException {
+        InformationSpread.PathMode fromBothEnds = InformationSpread.PathMode.BIDIRECTIONAL;
+        InformationSpread.PathMode guidedByLandmarks = InformationSpread.PathMode.LANDMARKS;
+        File file = File.createTempFile("grid", ".mtx");
+        file.deleteOnExit();
+        new GraphGenerator(GraphGenerator.Shape.GRID, 900, 4, 5).writeMtx(file.getPath());
+        inf.loadGraphFromDataSet(file.getPath());
+        for (int d = 2; d <= 900; d += 37) {
+            Collection<Integer> expected = inf.longestTransmissionPath(1, d);
+            assertEquals(expected, inf.longestTransmissionPath(1, d, fromBothEnds));
+            assertEquals(expected, inf.longestTransmissionPath(1, d, guidedByLandmarks));
+        }
+        assertTrue(inf.longestTransmissionPath(5, 5, guidedByLandmarks).isEmpty());
+
+        // every edge has p = 0.5, so many paths tie and all modes must agree
+        new GraphGenerator(GraphGenerator.Shape.GRID, 400, 4, GraphGenerator.FIXED, 5)
+                .writeMtx(file.getPath());
+        inf.loadGraphFromDataSet(file.getPath());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 24), inf.longestTransmissionPath(1, 24));
+        assertEquals(Arrays.asList(1, 2, 3, 23), inf.longestTransmissionPath(1, 23));
+        for (int s = 1; s <= 400; s += 19) {
+            for (int d = 1; d <= 400; d += 7) {
+                Collection<Integer> expected = inf.longestTransmissionPath(s, d);
+                assertEquals(expected, inf.longestTransmissionPath(s, d, fromBothEnds));
+                assertEquals(expected, inf.longestTransmissionPath(s, d, guidedByLandmarks));
+            }
+        }
+        // concurrent queries borrow separate searches from the pool
+        assertTrue(IntStream.rangeClosed(1, 400).parallel().allMatch(d -> {
+            Collection<Integer> expected = inf.longestTransmissionPath(7, d);
+            return expected.equals(inf.longestTransmissionPath(7, d, fromBothEnds))
+                    && expected.equals(inf.longestTransmissionPath(7, d, guidedByLandmarks));
+        }));
+
+        // directed: 1 -> 2 -> 3 -> 4 is the only way to 4, and 4 -> 1 is cheap
+        GraphCSR.Builder builder = new GraphCSR.Builder(6);
+        builder.addEdge(1, 2, 0.1);
+        builder.addEdge(2, 3, 0.1);
+        builder.addEdge(3, 4, 0.1);
+        builder.addEdge(1, 4, 1.0);
+        builder.addEdge(4, 1, 0.1);
+        Graph g = builder.build();
+        Graph reverse = GraphCSR.Builder.reversed(g).build();
+        BidirectionalSearch both = new BidirectionalSearch(g, reverse);
+        LandmarkSearch alt = new LandmarkSearch(g, new LandmarkIndex(g, reverse, 2, 1));
+        assertTrue(both.run(1, 4));
+        assertArrayEquals(new int[] {1, 2, 3, 4}, both.path());
+        assertEquals(0.3, both.distance(), 1e-12);
+        assertTrue(alt.run(1, 4));
+        assertArrayEquals(new int[] {1, 2, 3, 4}, alt.path());
+        assertArrayEquals(new int[] {4, 1}, alt.run(4, 1) ? alt.path() : null);
+        assertFalse(both.run(1, 5));
+        assertEquals(0, both.path().length);
+        assertFalse(alt.run(1, 5));
+        assertEquals(0, alt.settledCount());
+        // a directed snapshot is not its own reverse
+        File snapshot = File.createTempFile("directed", ".snap");
+        snapshot.deleteOnExit();
+        GraphSnapshot.save(g, snapshot.getPath(), null);
+        inf.loadGraphFromSnapshot(snapshot.getPath(), null);
+        List<Integer> forward = Arrays.asList(1, 2, 3, 4);
+        assertEquals(forward, inf.longestTransmissionPath(1, 4, fromBothEnds));
+        assertEquals(forward, inf.longestTransmissionPath(1, 4, guidedByLandmarks));
+        assertEquals(Arrays.asList(4, 1), inf.longestTransmissionPath(4, 1));
+
+        // across a grid: both modes settle fewer nodes
+        Graph grid = new GraphGenerator(GraphGenerator.Shape.GRID, 2500, 4, 5).toBuilder().build();
+        ShortestPathSearch dijkstra = new ShortestPathSearch(grid);
+        dijkstra.run(1, 2500);
+        BidirectionalSearch fast = new BidirectionalSearch(grid, grid);
+        LandmarkSearch guided = new LandmarkSearch(grid, new LandmarkIndex(grid, grid, 4, 1));
+        assertTrue(fast.run(1, 2500));
+        assertTrue(guided.run(1, 2500));
+        assertEquals(dijkstra.distance(2500), fast.distance(), 1e-9);
+        assertEquals(dijkstra.distance(2500), guided.distance(), 1e-9);
+        assertTrue(fast.settledCount() < dijkstra.settledCount());
+        assertTrue(guided.settledCount() < dijkstra.settledCount());
+    }
+
+    @Test
+    public void testDeltaStepping() throws IOException {
+        GraphGenerator.Shape[] shapes = GraphGenerator.Shape.values();
+        double[] widths = {0.05, 0.5, 2, Double.POSITIVE_INFINITY};
+        BitSet removed = new BitSet();
+        for (int v = 10; v < 3000; v += 10) {
+            removed.set(v);
+        }
+        // with p = 0.5 on every edge most nodes have several best paths
+        String[] distributions = {GraphGenerator.UNIFORM, GraphGenerator.FIXED};
+        for (GraphGenerator.Shape shape: shapes) {
+            for (String distribution: distributions) {
+                Graph g = new GraphGenerator(shape, 3000, 8, distribution, 11).toBuilder().build();
+                ShortestPathSearch dijkstra = new ShortestPathSearch(g, removed);
+                for (double width: widths) {
+                    DeltaSteppingSearch delta = new DeltaSteppingSearch(g, removed, width);
+                    for (int source = 1; source < 3000; source += 997) {
+                        dijkstra.run(source);
+                        delta.run(source);
+                        assertEquals(dijkstra.reachedCount(), delta.reachedCount());
+                        assertEquals(dijkstra.settledCount(), delta.settledCount());
+                        for (int v = 0; v <= 3000; v++) {
+                            assertEquals(dijkstra.distance(v), delta.distance(v), 0);
+                            assertEquals(dijkstra.predecessor(v), delta.predecessor(v));
+                        }
+                        // bounded, as transfectionRate runs it
+                        dijkstra.run(source, -1, 1.5);
+                        delta.run(source, -1, 1.5);
+                        assertEquals(dijkstra.reachedCount(), delta.reachedCount());
+                        for (int i = 0; i < delta.reachedCount(); i++) {
+                            int v = delta.reachedNode(i);
+                            assertEquals(dijkstra.distance(v), delta.distance(v), 0);
+                        }
+                    }
+                }
+            }
+        }
+
+        // 1 2 3 6 and 1 5 6 tie at distance 3; the path with fewer hops wins
+        GraphCSR.Builder tied = new GraphCSR.Builder(7);
+        int[][] edges = {{1, 2}, {2, 3}, {3, 6}, {5, 6}};
+        for (int[] e: edges) {
+            tied.addEdge(e[0], e[1], 1.0);
+            tied.addEdge(e[1], e[0], 1.0);
+        }
+        tied.addEdge(1, 5, 2.0);
+        tied.addEdge(5, 1, 2.0);
+        Graph t = tied.build();
+        ShortestPathSearch exact = new ShortestPathSearch(t);
+        exact.run(1);
+        assertEquals(5, exact.predecessor(6));
+        for (double width: widths) {
+            DeltaSteppingSearch delta = new DeltaSteppingSearch(t, width);
+            delta.run(1);
+            for (int v = 0; v < 7; v++) {
+                assertEquals(exact.predecessor(v), delta.predecessor(v));
+            }
+        }
+
+        File file = File.createTempFile("generated", ".mtx");
+        file.deleteOnExit();
+        new GraphGenerator(GraphGenerator.Shape.BARABASI_ALBERT, 2000, 6, 3)
+                .writeMtx(file.getPath());
+        inf.loadGraphFromDataSet(file.getPath());
+        double[] sequential = new double[5];
+        List<Collection<Integer>> paths = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sequential[i] = inf.transfectionRate(1 + 400 * i, 0.05);
+            paths.add(inf.longestTransmissionPath(1 + 400 * i, 2000));
+        }
+        InformationSpread parallel = new InformationSpread();
+        parallel.setBucketWidth(0.5);
+        parallel.loadGraphFromDataSet(file.getPath());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(sequential[i], parallel.transfectionRate(1 + 400 * i, 0.05), 0);
+            assertEquals(paths.get(i), parallel.longestTransmissionPath(1 + 400 * i, 2000));
+        }
+        // the trees are the same, so switching the width keeps them valid
+        inf.setBucketWidth(0.5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(paths.get(i), inf.longestTransmissionPath(1 + 400 * i, 2000));
+        }
+    }
+
+    @Test
+    public void testTransmissionPath() throws IOException {
+        inf.loadGraphFromDataSet(root + "test.mtx");
+        TransmissionPath path = inf.transmissionPath(1, 5);
+        assertTrue(path.reachable());
+        assertArrayEquals(new int[] {1, 3, 5}, path.nodes());
+        assertEquals(2, path.hops());
+        assertEquals(0.3, path.hopProbability(0), 1e-12);
+        assertEquals(0.5, path.hopProbability(1), 1e-12);
+        assertEquals(0.15, path.probability(), 1e-12);
+        StringBuilder out = new StringBuilder();
+        path.writeTo(out);
+        assertEquals("1 3 " + path.hopProbability(0) + "\n3 5 " + path.hopProbability(1) + "\n",
+                out.toString());
+        assertEquals(0, path.settledCount());
+        for (InformationSpread.PathMode mode: InformationSpread.PathMode.values()) {
+            TransmissionPath found = inf.transmissionPath(1, 5, mode);
+            assertArrayEquals(path.nodes(), found.nodes());
+            assertEquals(path.probability(), found.probability(), 1e-12);
+            assertEquals(mode == InformationSpread.PathMode.DIJKSTRA, found.settledCount() == 0);
+            assertFalse(inf.transmissionPath(1, 99, mode).reachable());
+        }
+
+        TransmissionPath self = inf.transmissionPath(2, 2);
+        assertArrayEquals(new int[] {2}, self.nodes());
+        assertEquals(1, self.probability(), 0);
+        inf.removeVaccinated(Arrays.asList(2, 3, 4));
+        TransmissionPath cut = inf.transmissionPath(1, 5);
+        assertFalse(cut.reachable());
+        assertEquals(0, cut.length());
+        assertEquals(0, cut.probability(), 0);
+        assertTrue(inf.longestTransmissionPath(1, 5).isEmpty());
+        for (InformationSpread.PathMode mode: InformationSpread.PathMode.values()) {
+            assertFalse(inf.transmissionPath(1, 5, mode).reachable());
+        }
+
+        // a chain far longer than the call stack could follow
+        int n = 300000;
+        GraphCSR.Builder builder = new GraphCSR.Builder(n + 1);
+        for (int v = 1; v < n; v++) {
+            builder.addEdge(v, v + 1, -Math.log(0.999));
+        }
+        ShortestPathSearch search = new ShortestPathSearch(builder.build());
+        search.run(1);
+        TransmissionPath chain = TransmissionPath.of(search, 1, n);
+        assertEquals(n, chain.length());
+        assertEquals(n, chain.node(n - 1));
+        assertEquals(0.999, chain.hopProbability(n / 2), 1e-12);
+        assertEquals(Math.pow(0.999, n - 1), chain.probability(), 1e-12);
+        long[] hops = new long[1];
+        chain.forEachHop((u, v, p) -> {
+            assertEquals(u + 1, v);
+            hops[0]++;
+        });
+        assertEquals(n - 1, hops[0]);
+        assertEquals("TransmissionPath[1 -> 2 -> 3 -> 4 -> ... -> 299997 -> 299998 -> 299999"
+                + " -> 300000, 299999 hops, p=" + chain.probability() + "]", chain.toString());
+        search.run(n);
+        assertFalse(TransmissionPath.of(search, n, 1).reachable());
+        assertFalse(TransmissionPath.of(search, n, n + 5).reachable());
+    }
+
+    /**
+     * Write a small .mtx file that is deleted when the tests exit
+     *
+     * @param lines the "nodes edges" header followed by one "u v p" line per edge
+     * @return the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    private static String writeMtx(String... lines) throws IOException {
+        File file = File.createTempFile("graph", ".mtx");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (String line: lines) {
+                out.println(line);
+            }
+        }
+        return file.getPath();
+    }
 }
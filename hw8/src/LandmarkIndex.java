@@ -0,0 +1,150 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Distances from and to a few landmark nodes, for A* with landmarks and
+ * the triangle inequality (ALT). For a landmark L and any nodes v and t,
+ * <pre>
+ *     d(v, t) &gt;= d(L, t) - d(L, v)
+ *     d(v, t) &gt;= d(v, L) - d(t, L)
+ * </pre>
+ * so the largest of these over all landmarks is a lower bound on the
+ * distance left from v to t. The bound is exact when a landmark lies
+ * behind v or beyond t on the way, which is why landmarks are spread
+ * out: each one is the node farthest from the landmarks chosen before it.
+ * Nodes in a component no landmark reaches yet count as infinitely far,
+ * so every component of a disconnected graph gets a landmark before any
+ * component gets a second one.
+ *
+ * The tables take 16 bytes per node and landmark, or 8 when the graph is
+ * its own reverse. The index never changes after construction and can be
+ * shared by any number of LandmarkSearch instances.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class LandmarkIndex {
+
+    private final int n;
+    private final int[] landmarks;
+    // node major, so one bound reads adjacent entries:
+    // from[v * k + i] = d(landmarks[i], v) and to[v * k + i] = d(v, landmarks[i])
+    private final double[] from;
+    private final double[] to;
+
+
+    /**
+     * @param graph   the graph, with weights -log(p)
+     * @param reverse the graph with every edge turned around, or graph
+     *                itself if it is undirected
+     * @param count   the number of landmarks wanted
+     * @param seed    picks the first landmark
+     */
+    public LandmarkIndex(Graph graph, Graph reverse, int count, long seed) {
+        n = graph.nodeCount();
+        int[] candidates = IntStream.range(0, n).filter(v -> graph.degree(v) > 0).toArray();
+        int k = Math.min(count, candidates.length);
+        int[] chosen = new int[k];
+        double[][] dist = new double[k][];
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        ShortestPathSearch search = new ShortestPathSearch(graph);
+        int size = 0;
+        int next = k == 0 ? -1 : candidates[new SplittableRandom(seed).nextInt(candidates.length)];
+        while (size < k && next >= 0) {
+            chosen[size] = next;
+            dist[size] = distances(search, next);
+            for (int v: candidates) {
+                nearest[v] = Math.min(nearest[v], dist[size][v]);
+            }
+            size++;
+            // farthest from every landmark so far; landmarks themselves are at 0
+            next = -1;
+            for (int v: candidates) {
+                if (nearest[v] > 0 && (next < 0 || nearest[v] > nearest[next])) {
+                    next = v;
+                }
+            }
+        }
+        landmarks = Arrays.copyOf(chosen, size);
+        from = interleave(dist, size);
+        if (reverse == graph) {
+            to = from;
+        } else {
+            double[][] back = new double[size][];
+            IntStream.range(0, size).parallel().forEach(i ->
+                    back[i] = distances(new ShortestPathSearch(reverse), landmarks[i]));
+            to = interleave(back, size);
+        }
+    }
+
+
+    /**
+     * @return the landmark nodes, in the order they were chosen
+     */
+    public int[] landmarks() {
+        return landmarks.clone();
+    }
+
+
+    /**
+     * @param v the node
+     * @param t the destination
+     * @return a lower bound on the -log probability of the best path from v
+     *         to t, positive infinity if the landmarks prove there is none
+     */
+    public double lowerBound(int v, int t) {
+        double bound = 0;
+        int k = landmarks.length;
+        for (int i = 0; i < k; i++) {
+            double lv = from[v * k + i];
+            double lt = from[t * k + i];
+            if (lt == Double.POSITIVE_INFINITY) {
+                if (lv != Double.POSITIVE_INFINITY) {
+                    return Double.POSITIVE_INFINITY; // L reaches v but not t
+                }
+            } else if (lv != Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, lt - lv);
+            }
+            double vl = to[v * k + i];
+            double tl = to[t * k + i];
+            if (vl == Double.POSITIVE_INFINITY) {
+                if (tl != Double.POSITIVE_INFINITY) {
+                    return Double.POSITIVE_INFINITY; // t reaches L but v does not
+                }
+            } else if (tl != Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, vl - tl);
+            }
+        }
+        return bound;
+    }
+
+
+    /**
+     * @return the number of nodes the tables cover, node 0 included
+     */
+    public int nodeCount() {
+        return n;
+    }
+
+    // One row per landmark to one row per node
+    private double[] interleave(double[][] rows, int k) {
+        double[] table = new double[n * k];
+        for (int i = 0; i < k; i++) {
+            for (int v = 0; v < n; v++) {
+                table[v * k + i] = rows[i][v];
+            }
+        }
+        return table;
+    }
+
+    // Every node's distance from source, infinity where unreachable
+    private double[] distances(ShortestPathSearch search, int source) {
+        search.run(source);
+        double[] d = new double[n];
+        for (int v = 0; v < n; v++) {
+            d[v] = search.distance(v);
+        }
+        return d;
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.Arrays;
+
+/**
+ * Point-to-point A* search guided by a LandmarkIndex. Nodes leave the queue
+ * in the order of their distance from the source plus the landmark lower
+ * bound on their distance to the destination. Nodes on the way to the
+ * destination come out first, and nodes behind the source are left in
+ * the queue, so a far destination is found after settling a small part of
+ * the graph. Nodes the landmarks prove cannot reach the destination are
+ * never queued at all, and an unreachable destination is reported without
+ * a search.
+ *
+ * The landmark bounds are consistent, so every node is normally settled
+ * once and the path found is a best path. Ties are broken as in
+ * ShortestPathSearch: fewer hops first, then the lowest predecessor id. The
+ * queue orders nodes by (key, hops) and a node is queued again whenever its
+ * (distance, hops) improves, also after it was settled. After the
+ * destination is settled, the search goes on through every node whose key
+ * is within a relative SLACK of the destination's distance, so every
+ * equally good path is seen and the returned path is the one
+ * ShortestPathSearch finds. An instance can be reused for any number of
+ * queries but must not be shared between threads; the index can be.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class LandmarkSearch {
+
+    // relative margin past the destination's distance that is still explored
+    private static final double SLACK = 1e-9;
+
+    private final LandmarkIndex index;
+    private final NeighborCursor cursor;
+    private final double[] dist;
+    private final double[] bound;
+    private final double[] key;
+    private final int[] hops;
+    private final int[] pred;
+    private final int[] touched;
+    private final IndexedMinHeap heap;
+    private int touchedCount;
+    private int settledCount;
+    private int source;
+    private int destination;
+
+
+    /**
+     * @param graph the graph, with weights -log(p)
+     * @param index landmark distances computed on the same graph
+     */
+    public LandmarkSearch(Graph graph, LandmarkIndex index) {
+        int n = graph.nodeCount();
+        this.index = index;
+        this.cursor = graph.neighborCursor();
+        this.dist = new double[n];
+        this.bound = new double[n];
+        this.key = new double[n];
+        this.hops = new int[n];
+        this.pred = new int[n];
+        this.touched = new int[n];
+        this.heap = new IndexedMinHeap(key, hops);
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(bound, Double.NaN);
+    }
+
+
+    /**
+     * Find the best path from source to destination
+     *
+     * @param source      the start node
+     * @param destination the end node
+     * @return true if destination can be reached from source
+     */
+    public boolean run(int source, int destination) {
+        reset();
+        this.source = source;
+        this.destination = destination;
+        if (boundOf(source) == Double.POSITIVE_INFINITY) {
+            return false;
+        }
+        dist[source] = 0;
+        hops[source] = 0;
+        pred[source] = source;
+        key[source] = bound[source];
+        heap.push(source);
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            if (reached() && key[node] > dist[destination] * (1 + SLACK)) {
+                break;
+            }
+            settledCount++;
+            if (node == destination) {
+                continue;
+            }
+            double d = dist[node];
+            int steps = hops[node] + 1;
+            cursor.reset(node);
+            while (cursor.next()) {
+                int neighbor = cursor.target();
+                double temp = d + cursor.weight();
+                double current = dist[neighbor];
+                if (temp < current || (temp == current && steps < hops[neighbor])) {
+                    double h = boundOf(neighbor);
+                    if (h == Double.POSITIVE_INFINITY) {
+                        continue; // a dead end for this destination
+                    }
+                    dist[neighbor] = temp;
+                    hops[neighbor] = steps;
+                    pred[neighbor] = node;
+                    key[neighbor] = temp + h;
+                    // also requeues a settled node if rounding broke consistency
+                    heap.push(neighbor);
+                } else if (temp == current && steps == hops[neighbor] && node < pred[neighbor]) {
+                    pred[neighbor] = node;
+                }
+            }
+        }
+        heap.clear();
+        return reached();
+    }
+
+
+    /**
+     * @return the -log probability of the path the last query found, or
+     *         positive infinity if there was none
+     */
+    public double distance() {
+        return dist[destination];
+    }
+
+
+    /**
+     * @return the nodes from source to destination, both included, or an
+     *         empty array if the last query found no path
+     */
+    public int[] path() {
+        return transmissionPath().nodes();
+    }
+
+
+    /**
+     * @return the path the last query found, with the probability of
+     *         every hop and the number of nodes the query settled
+     */
+    public TransmissionPath transmissionPath() {
+        return TransmissionPath.walk(source, destination, v -> pred[v], v -> dist[v],
+                pred.length).withSettledCount(settledCount);
+    }
+
+
+    /**
+     * @return the number of nodes the last query removed from the queue
+     */
+    public int settledCount() {
+        return settledCount;
+    }
+
+    private boolean reached() {
+        return dist[destination] != Double.POSITIVE_INFINITY;
+    }
+
+    // The landmark bound of v, computed the first time a query needs it
+    private double boundOf(int v) {
+        if (Double.isNaN(bound[v])) {
+            bound[v] = index.lowerBound(v, destination);
+            touched[touchedCount++] = v;
+        }
+        return bound[v];
+    }
+
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            dist[touched[i]] = Double.POSITIVE_INFINITY;
+            bound[touched[i]] = Double.NaN;
+        }
+        touchedCount = 0;
+        settledCount = 0;
+    }
+}
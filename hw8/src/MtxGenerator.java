@@ -0,0 +1,39 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes a synthetic contact graph as a .mtx file that loadGraphFromDataSet
+ * reads: an "nodes edges" line followed by one "u v p" line per edge, with
+ * ids starting at 1. Edges are streamed to disk as they are generated, so
+ * files with 10^8 edges need no more memory than small ones (except for the
+ * ba shape, see GraphGenerator).
+ *
+ * Usage: java MtxGenerator out.mtx [er|powerlaw|ws|ba|grid] [nodes] [avgDegree]
+ *                          [uniform|exponential|fixed] [seed]
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class MtxGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: java MtxGenerator out.mtx [er|powerlaw|ws|ba|grid] [nodes]"
+                    + " [avgDegree] [uniform|exponential|fixed] [seed]");
+            System.exit(1);
+        }
+        String path = args[0];
+        GraphGenerator.Shape shape = args.length > 1 ? GraphGenerator.Shape.parse(args[1])
+                : GraphGenerator.Shape.POWER_LAW;
+        int nodes = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+        int degree = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        String distribution = args.length > 4 ? args[4] : GraphGenerator.UNIFORM;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 594;
+
+        GraphGenerator generator = new GraphGenerator(shape, nodes, degree, distribution, seed);
+        long start = System.nanoTime();
+        generator.writeMtx(path);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %d nodes, %d edges, %.1f MB in %.1f s%n", path, nodes,
+                generator.edgeCount(), new File(path).length() / (1024.0 * 1024.0), seconds);
+    }
+}
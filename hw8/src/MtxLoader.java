@@ -0,0 +1,356 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a Matrix Market coordinate file into a GraphCSR.Builder. The file is
+ * memory mapped and split at line boundaries into chunks that are parsed on
+ * the common fork-join pool. Numbers are parsed straight from the mapped
+ * bytes without creating Strings.
+ *
+ * Lines starting with % (including the %%MatrixMarket banner) and blank
+ * lines are skipped. The first remaining line gives the size, either
+ * "nodes edges" or "rows cols entries". Every entry "u v p" adds the edges
+ * (u, v) and (v, u) with weight -log(p). A missing p counts as 1, but a %
+ * where a number is expected is an error, so "1 2 % note" is rejected
+ * rather than read with p = 1. As in the original loader, entries that
+ * touch node 0 are ignored, and so are entries with p = 1, because a
+ * weight of 0 cannot be stored.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class MtxLoader {
+
+    private static final long MAX_CHUNK = 1L << 29;
+    private static final long MIN_CHUNK = 1L << 20;
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private MtxLoader() {
+        // static utility
+    }
+
+
+    /**
+     * Load a file using one chunk per core for large files
+     *
+     * @param filePath the path of the .mtx file
+     * @return a builder holding both directions of every entry
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static GraphCSR.Builder load(String filePath) throws IOException {
+        return load(filePath, Runtime.getRuntime().availableProcessors());
+    }
+
+
+    /**
+     * Load a file split into the given number of chunks. Files too small
+     * to split use fewer chunks, and files too large to map in that many
+     * pieces use more.
+     *
+     * @param filePath the path of the .mtx file
+     * @param chunks   the number of chunks to parse in parallel
+     * @return a builder holding both directions of every entry, in file order
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static GraphCSR.Builder load(String filePath, int chunks) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = ch.size();
+            Parser header = new Parser(ch.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(size, MAX_CHUNK)), 0, 0);
+            long[] dims = header.readSizeLine();
+            int n = (int) (dims[0] + 1);
+            long dataStart = header.position();
+
+            long dataSize = size - dataStart;
+            int k = (int) Math.max(1, Math.min(chunks, dataSize / MIN_CHUNK));
+            k = (int) Math.max(k, (dataSize + MAX_CHUNK - 1) / MAX_CHUNK);
+            long[] bounds = new long[k + 1];
+            bounds[0] = dataStart;
+            bounds[k] = size;
+            for (int i = 1; i < k; i++) {
+                long nominal = dataStart + dataSize * i / k;
+                bounds[i] = Math.max(bounds[i - 1], nextLineStart(ch, nominal));
+            }
+
+            List<Callable<EdgeChunk>> tasks = new ArrayList<>();
+            for (int i = 0; i < k; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                tasks.add(() -> {
+                    MappedByteBuffer buf =
+                            ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    return new Parser(buf, start, n).readEntries();
+                });
+            }
+            boolean sized = dims[1] > 0 && dims[1] < Integer.MAX_VALUE / 2;
+            int expected = sized ? (int) (2 * dims[1]) : 16;
+            GraphCSR.Builder builder = new GraphCSR.Builder(n, expected);
+            for (Future<EdgeChunk> f: ForkJoinPool.commonPool().invokeAll(tasks)) {
+                EdgeChunk c = get(f);
+                builder.addEdges(c.from, c.to, c.wgts, c.size);
+            }
+            return builder;
+        }
+    }
+
+    private static EdgeChunk get(Future<EdgeChunk> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // Return the position just after the first newline at or after pos - 1
+    private static long nextLineStart(FileChannel ch, long pos) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long at = pos - 1;
+        while (true) {
+            buf.clear();
+            int read = ch.read(buf, at);
+            if (read <= 0) {
+                return ch.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buf.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += read;
+        }
+    }
+
+
+    /**
+     * Directed edges parsed from one chunk
+     */
+    private static class EdgeChunk {
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        double[] wgts = new double[1024];
+        int size;
+
+        void add(int v, int w, double wgt) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+                wgts = Arrays.copyOf(wgts, size * 2);
+            }
+            from[size] = v;
+            to[size] = w;
+            wgts[size] = wgt;
+            size++;
+        }
+    }
+
+
+    /**
+     * Byte-wise tokenizer over one mapped region of the file
+     */
+    private static class Parser {
+        private final ByteBuffer buf;
+        private final long base;
+        private final int end;
+        private final int n;
+        private int pos;
+
+        Parser(ByteBuffer buf, long base, int n) {
+            this.buf = buf;
+            this.base = base;
+            this.end = buf.limit();
+            this.n = n;
+        }
+
+        long position() {
+            return base + pos;
+        }
+
+        // Skip comments and blank lines, then read up to three numbers
+        long[] readSizeLine() throws IOException {
+            while (true) {
+                skipBlanks();
+                if (pos >= end) {
+                    throw error("missing size line");
+                }
+                byte b = buf.get(pos);
+                if (b == '%' || b == '\n' || b == '\r') {
+                    skipLine();
+                } else {
+                    break;
+                }
+            }
+            long[] nums = new long[3];
+            int count = 0;
+            while (count < 3 && !atLineEnd()) {
+                nums[count++] = readLong();
+                skipBlanks();
+            }
+            skipLine();
+            if (count == 3) {
+                return new long[] {Math.max(nums[0], nums[1]), nums[2]};
+            }
+            return new long[] {nums[0], count == 2 ? nums[1] : 0};
+        }
+
+        EdgeChunk readEntries() throws IOException {
+            EdgeChunk out = new EdgeChunk();
+            while (true) {
+                skipBlanks();
+                if (pos >= end) {
+                    return out;
+                }
+                byte b = buf.get(pos);
+                if (b == '%' || b == '\n' || b == '\r') {
+                    skipLine();
+                    continue;
+                }
+                long u = readLong();
+                skipBlanks();
+                long v = readLong();
+                skipBlanks();
+                double p = atLineEnd() ? 1 : readDouble();
+                skipLine();
+                if (u == 0 || v == 0) {
+                    continue;
+                }
+                if (u < 0 || v < 0 || u >= n || v >= n) {
+                    throw error("node id out of range");
+                }
+                double w = -1 * Math.log(p);
+                out.add((int) u, (int) v, w);
+                out.add((int) v, (int) u, w);
+            }
+        }
+
+        private boolean atLineEnd() {
+            if (pos >= end) {
+                return true;
+            }
+            byte b = buf.get(pos);
+            return b == '\n' || b == '\r';
+        }
+
+        private void skipBlanks() {
+            while (pos < end) {
+                byte b = buf.get(pos);
+                if (b != ' ' && b != '\t') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private void skipLine() {
+            while (pos < end && buf.get(pos++) != '\n') {
+                // skip the rest of the line
+            }
+        }
+
+        private long readLong() throws IOException {
+            int start = pos;
+            long value = 0;
+            boolean neg = pos < end && buf.get(pos) == '-';
+            if (neg || (pos < end && buf.get(pos) == '+')) {
+                pos++;
+            }
+            int digits = pos;
+            while (pos < end) {
+                int d = buf.get(pos) - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                value = value * 10 + d;
+                pos++;
+            }
+            if (pos == digits) {
+                pos = start;
+                throw error("expected an integer");
+            }
+            return neg ? -value : value;
+        }
+
+        // Exact when the mantissa fits in 53 bits and |exponent| <= 22,
+        // otherwise handed to Double.parseDouble
+        private double readDouble() throws IOException {
+            int start = pos;
+            boolean neg = false;
+            byte b = buf.get(pos);
+            if (b == '-' || b == '+') {
+                neg = b == '-';
+                pos++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean any = false;
+            boolean dot = false;
+            while (pos < end) {
+                b = buf.get(pos);
+                if (b == '.' && !dot) {
+                    dot = true;
+                } else if (b >= '0' && b <= '9') {
+                    any = true;
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        if (mantissa != 0) {
+                            digits++;
+                        }
+                        if (dot) {
+                            scale--;
+                        }
+                    } else if (!dot) {
+                        scale++;
+                    }
+                } else {
+                    break;
+                }
+                pos++;
+            }
+            if (!any) {
+                throw error("expected a number");
+            }
+            if (pos < end && (buf.get(pos) == 'e' || buf.get(pos) == 'E')) {
+                pos++;
+                scale += (int) readLong();
+            }
+            if (digits <= 15 && scale >= -22 && scale <= 22) {
+                double d = mantissa;
+                d = scale < 0 ? d / POW10[-scale] : d * POW10[scale];
+                return neg ? -d : d;
+            }
+            byte[] text = new byte[pos - start];
+            for (int i = 0; i < text.length; i++) {
+                text[i] = buf.get(start + i);
+            }
+            return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " at byte " + (base + pos));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Walks the neighbors of a node together with the weights of the connecting
+ * edges, without allocating. Neighbors come out in ascending id order.
+ *
+ * <pre>
+ * cursor.reset(v);
+ * while (cursor.next()) {
+ *     relax(cursor.target(), cursor.weight());
+ * }
+ * </pre>
+ *
+ * A cursor can be reset to any number of nodes, but is not thread safe, and
+ * the graph must not be modified while a walk is in progress.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public interface NeighborCursor {
+    /**
+     * Position the cursor before the first neighbor of v
+     *
+     * @param v the node whose neighbors are walked
+     */
+    void reset(int v);
+
+
+    /**
+     * Advance to the next neighbor
+     *
+     * @return false once every neighbor has been visited
+     */
+    boolean next();
+
+
+    /**
+     * @return the id of the current neighbor
+     */
+    int target();
+
+
+    /**
+     * @return the weight of the edge to the current neighbor
+     */
+    double weight();
+
+
+    /**
+     * Advance to the first later neighbor whose id is at least w. The
+     * current neighbor, if any, must have an id below w. This walks the
+     * neighbors one by one unless the graph can search its rows.
+     *
+     * @param w the id to reach
+     * @return false if no remaining neighbor has an id of at least w
+     */
+    default boolean skipTo(int w) {
+        while (next()) {
+            if (target() >= w) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,190 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of shortest-path trees, one per source, for
+ * answering many path queries from the same source. It is bounded by the
+ * total size of the trees in bytes, not by their number, because a tree
+ * from a well-connected source can be a thousand times larger than one
+ * from an isolated corner of the graph.
+ *
+ * The trees are only valid for the graph they were computed on. The owner
+ * calls clear() when it publishes a new graph, so neither the old trees
+ * nor the old graph are held until the next lookup. The cache also
+ * remembers the graph it was filled for, and a lookup with a different
+ * graph object drops every tree, which covers a search that finishes on
+ * the old graph after the clear. Graphs are replaced rather than changed in place, so this catches
+ * every mutation.
+ *
+ * All methods are thread safe. A miss runs its search outside the lock, so
+ * slow searches do not hold up hits from other threads.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class PathTreeCache {
+
+    private final long capacity;
+    private final LinkedHashMap<Integer, ShortestPathTree> trees =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private Graph graph;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+
+    /**
+     * @param capacity the most bytes the cached trees may take together
+     */
+    public PathTreeCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+
+    /**
+     * @param g      the graph, with weights -log(p)
+     * @param source the root of the tree
+     * @return the shortest-path tree from source in g, from the cache if
+     *         it is there and computed and cached otherwise
+     */
+    public ShortestPathTree tree(Graph g, int source) {
+        return tree(g, source, 0);
+    }
+
+
+    /**
+     * Like tree(g, source), computing a missing tree with a
+     * DeltaSteppingSearch when bucketWidth is positive. Both searches give
+     * the same distances and break ties between equally good paths the
+     * same way, so trees from either can share the cache.
+     *
+     * @param g           the graph, with weights -log(p)
+     * @param source      the root of the tree
+     * @param bucketWidth 0 for the sequential search, otherwise the bucket
+     *                    width of the parallel one
+     * @return the shortest-path tree from source in g
+     */
+    public ShortestPathTree tree(Graph g, int source, double bucketWidth) {
+        synchronized (this) {
+            if (g == graph) {
+                ShortestPathTree t = trees.get(source);
+                if (t != null) {
+                    hits++;
+                    return t;
+                }
+            }
+            misses++;
+        }
+        SingleSourceSearch search = SingleSourceSearch.create(g, null, bucketWidth);
+        search.run(source);
+        ShortestPathTree t = new ShortestPathTree(search, source);
+        put(g, t);
+        return t;
+    }
+
+
+    /**
+     * Drop every tree and forget the graph they were computed on
+     */
+    public synchronized void clear() {
+        if (!trees.isEmpty()) {
+            invalidations++;
+        }
+        trees.clear();
+        bytes = 0;
+        graph = null;
+    }
+
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+
+    /**
+     * @return the number of lookups that had to run a search
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+
+    /**
+     * @return the number of trees dropped to stay within the capacity
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+
+    /**
+     * @return the number of times the whole cache was dropped because the
+     *         graph changed
+     */
+    public synchronized long invalidations() {
+        return invalidations;
+    }
+
+
+    /**
+     * @return the number of cached trees
+     */
+    public synchronized int size() {
+        return trees.size();
+    }
+
+
+    /**
+     * @return the bytes the cached trees take together
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+
+    /**
+     * @return the most bytes the cached trees may take together
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+
+    @Override
+    public synchronized String toString() {
+        return "PathTreeCache[trees=" + trees.size() + ", bytes=" + bytes + "/" + capacity
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", invalidations=" + invalidations + "]";
+    }
+
+    // Add a tree computed on g, evicting the least recently used ones to make room
+    private synchronized void put(Graph g, ShortestPathTree t) {
+        if (g != graph) {
+            clear();
+            graph = g;
+        }
+        if (t.bytes() > capacity) {
+            return; // would evict everything and still not fit
+        }
+        ShortestPathTree old = trees.put(t.source(), t);
+        if (old != null) {
+            bytes -= old.bytes(); // another thread missed on the same source
+        }
+        bytes += t.bytes();
+        Iterator<Map.Entry<Integer, ShortestPathTree>> it = trees.entrySet().iterator();
+        while (bytes > capacity && it.hasNext()) {
+            Map.Entry<Integer, ShortestPathTree> eldest = it.next();
+            if (eldest.getValue() == t) {
+                continue;
+            }
+            bytes -= eldest.getValue().bytes();
+            it.remove();
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Reverse-reachable (RR) set sampling for the independent cascade model.
+ * An RR set is built in three steps:
+ * <ul>
+ * <li>pick a uniformly random root;</li>
+ * <li>flip every edge once with its probability;</li>
+ * <li>collect the nodes that can reach the root over the edges that
+ * fired.</li>
+ * </ul>
+ * A seed set S infects the root exactly when S hits the RR set. So the
+ * fraction of RR sets S hits is an unbiased estimate of the fraction of
+ * nodes S infects. Once the sets are sampled, any spread question is a
+ * counting question over them.
+ *
+ * The sets are stored back to back in one int array with an offset per
+ * set. An inverted index lists, for every node, the sets that contain it.
+ * Sampling runs in parallel batches, each with its own SplittableRandom
+ * split from the seed in batch order, so the index does not depend on the
+ * number of threads.
+ *
+ * Accuracy: with theta sets, every estimate of a spread fraction is within
+ * epsilon of the truth with probability at least 1 - delta. For a single
+ * seed set, theta = ln(2 / delta) / (2 epsilon^2) is enough (Hoeffding). The
+ * greedy top-k selection looks at seed sets of every size up to k, so for
+ * all of them at once theta = (ln(2 / delta) + ln M) / (2 epsilon^2) is
+ * enough (union bound), where M = C(n, 0) + ... + C(n, k) counts the seed
+ * sets of at most k nodes. {@link #samplesFor} computes the latter.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class RRSetIndex {
+
+    private static final int BATCH = 1024;
+
+    private final int n;
+    private final int[] setOffsets;
+    private final int[] members;
+    private final int[] nodeOffsets;
+    private final int[] nodeSets;
+
+
+    /**
+     * @param g    the graph, with weights -log(p)
+     * @param sets the number of RR sets to sample
+     * @param seed the random seed
+     */
+    public RRSetIndex(Graph g, int sets, long seed) {
+        n = g.nodeCount();
+        // transpose: row v lists the u with an edge (u, v), with its probability
+        int[] inOffsets = new int[n + 1];
+        NeighborCursor cursor = g.neighborCursor();
+        for (int u = 0; u < n; u++) {
+            cursor.reset(u);
+            while (cursor.next()) {
+                inOffsets[cursor.target() + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] sources = new int[inOffsets[n]];
+        double[] probability = new double[inOffsets[n]];
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (int u = 0; u < n; u++) {
+            cursor.reset(u);
+            while (cursor.next()) {
+                int at = next[cursor.target()]++;
+                sources[at] = u;
+                probability[at] = Math.exp(-cursor.weight());
+            }
+        }
+
+        int count = n < 2 ? 0 : sets; // without nodes there is nothing to root a set at
+        int batches = (count + BATCH - 1) / BATCH;
+        SplittableRandom master = new SplittableRandom(seed);
+        SplittableRandom[] rngs = new SplittableRandom[batches];
+        for (int b = 0; b < batches; b++) {
+            rngs[b] = master.split();
+        }
+        int[][] batchMembers = new int[batches][];
+        int[][] batchSizes = new int[batches][];
+        IntStream.range(0, batches).parallel().forEach(b -> {
+            int inBatch = Math.min(BATCH, count - b * BATCH);
+            int[] sizes = new int[inBatch];
+            int[] buffer = new int[Math.max(16, inBatch * 4)];
+            int used = 0;
+            long[] visited = new long[(n + 63) >>> 6];
+            int[] queue = new int[n];
+            for (int i = 0; i < inBatch; i++) {
+                int size = sample(rngs[b], inOffsets, sources, probability, visited, queue);
+                if (used + size > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.max(used + size, buffer.length * 2));
+                }
+                System.arraycopy(queue, 0, buffer, used, size);
+                used += size;
+                sizes[i] = size;
+            }
+            batchMembers[b] = Arrays.copyOf(buffer, used);
+            batchSizes[b] = sizes;
+        });
+
+        long total = 0;
+        for (int[] m: batchMembers) {
+            total += m.length;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("too many RR set entries: " + total);
+        }
+        setOffsets = new int[count + 1];
+        members = new int[(int) total];
+        int set = 0;
+        int at = 0;
+        for (int b = 0; b < batches; b++) {
+            System.arraycopy(batchMembers[b], 0, members, at, batchMembers[b].length);
+            for (int size: batchSizes[b]) {
+                setOffsets[set + 1] = setOffsets[set] + size;
+                set++;
+            }
+            at += batchMembers[b].length;
+        }
+
+        // inverted index by counting sort on the member ids
+        nodeOffsets = new int[n + 1];
+        for (int v: members) {
+            nodeOffsets[v + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            nodeOffsets[v + 1] += nodeOffsets[v];
+        }
+        nodeSets = new int[members.length];
+        int[] fill = Arrays.copyOf(nodeOffsets, n);
+        for (int s = 0; s < count; s++) {
+            for (int i = setOffsets[s]; i < setOffsets[s + 1]; i++) {
+                nodeSets[fill[members[i]]++] = s;
+            }
+        }
+    }
+
+
+    /**
+     * Sample enough sets for an (epsilon, delta) guarantee on every seed set
+     * of up to k nodes
+     *
+     * @param g       the graph, with weights -log(p)
+     * @param epsilon the additive error allowed on a spread fraction
+     * @param delta   the probability of missing it
+     * @param k       the largest seed set that will be asked about
+     * @param seed    the random seed
+     * @return the index
+     */
+    public static RRSetIndex build(Graph g, double epsilon, double delta, int k, long seed) {
+        long sets = samplesFor(epsilon, delta, g.nodeCount() - 1, k);
+        if (sets > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("epsilon " + epsilon + " needs " + sets
+                    + " RR sets");
+        }
+        return new RRSetIndex(g, (int) sets, seed);
+    }
+
+
+    /**
+     * @param epsilon the additive error allowed on a spread fraction
+     * @param delta   the probability of missing it
+     * @param nodes   the number of nodes that can be seeds
+     * @param k       the largest seed set
+     * @return the number of RR sets that makes every estimate for a seed
+     *         set of at most k nodes accurate at once
+     */
+    public static long samplesFor(double epsilon, double delta, int nodes, int k) {
+        if (epsilon <= 0 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("need epsilon > 0 and 0 < delta < 1");
+        }
+        double logSets = logChooseUpTo(Math.max(1, nodes), Math.max(0, k));
+        return (long) Math.ceil((Math.log(2 / delta) + logSets) / (2 * epsilon * epsilon));
+    }
+
+
+    /**
+     * @return the number of RR sets
+     */
+    public int sets() {
+        return setOffsets.length - 1;
+    }
+
+
+    /**
+     * @return the total number of entries over all sets
+     */
+    public int totalSize() {
+        return members.length;
+    }
+
+
+    /**
+     * @param s the seed
+     * @return the estimated fraction of the nodes s infects
+     */
+    public double expectedSpread(int s) {
+        if (s <= 0 || s >= n || sets() == 0) {
+            return 0;
+        }
+        return (double) (nodeOffsets[s + 1] - nodeOffsets[s]) / sets();
+    }
+
+
+    /**
+     * @param seeds the seed set
+     * @return the estimated fraction of the nodes the seeds infect together
+     */
+    public double expectedSpread(int[] seeds) {
+        if (sets() == 0) {
+            return 0;
+        }
+        boolean[] hit = new boolean[sets()];
+        int covered = 0;
+        for (int s: seeds) {
+            if (s <= 0 || s >= n) {
+                continue;
+            }
+            for (int i = nodeOffsets[s]; i < nodeOffsets[s + 1]; i++) {
+                if (!hit[nodeSets[i]]) {
+                    hit[nodeSets[i]] = true;
+                    covered++;
+                }
+            }
+        }
+        return (double) covered / sets();
+    }
+
+
+    /**
+     * @param s the seed
+     * @return the estimated number of nodes s infects, itself included
+     */
+    public double expectedInfections(int s) {
+        return expectedSpread(s) * (n - 1);
+    }
+
+
+    /**
+     * Greedy maximum coverage over the RR sets: repeatedly take the node
+     * that hits the most sets not hit yet, the lowest id on a tie. Each set
+     * entry is visited at most once over the whole run.
+     *
+     * The candidates sit in a heap keyed by the gain they had when they
+     * were last filed. Gains only fall, so a popped node whose gain went
+     * down is filed again with its current gain instead of being taken,
+     * and a pick costs O(log n) per stale entry rather than a scan of all
+     * nodes.
+     *
+     * @param k the number of seeds
+     * @return up to k seeds with the estimated spread fraction after each
+     *         pick; fewer once no node hits an uncovered set
+     */
+    public SpreadSelection topSeeds(int k) {
+        int[] gain = new int[n];
+        long[] heap = new long[Math.max(0, n - 1)];
+        int heapSize = 0;
+        for (int v = 1; v < n; v++) {
+            gain[v] = nodeOffsets[v + 1] - nodeOffsets[v];
+            if (gain[v] > 0) {
+                heap[heapSize++] = entry(gain[v], v);
+            }
+        }
+        // ascending order is already a valid heap
+        Arrays.sort(heap, 0, heapSize);
+        boolean[] hit = new boolean[sets()];
+        int picks = Math.max(0, Math.min(k, n - 1));
+        int[] picked = new int[picks];
+        double[] spread = new double[picks];
+        int covered = 0;
+        int size = 0;
+        while (size < picks && heapSize > 0) {
+            int best = (int) heap[0];
+            if (heap[0] != entry(gain[best], best)) {
+                if (gain[best] > 0) {
+                    heap[0] = entry(gain[best], best);
+                } else {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(heap, heapSize);
+                continue;
+            }
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            for (int i = nodeOffsets[best]; i < nodeOffsets[best + 1]; i++) {
+                int set = nodeSets[i];
+                if (hit[set]) {
+                    continue;
+                }
+                hit[set] = true;
+                covered++;
+                for (int j = setOffsets[set]; j < setOffsets[set + 1]; j++) {
+                    gain[members[j]]--;
+                }
+            }
+            picked[size] = best;
+            spread[size] = (double) covered / sets();
+            size++;
+        }
+        return new SpreadSelection(Arrays.copyOf(picked, size), Arrays.copyOf(spread, size), 0, 0);
+    }
+
+    // Heap entry that orders higher gains first, then lower ids
+    private static long entry(int gain, int v) {
+        return (long) (Integer.MAX_VALUE - gain) << 32 | v;
+    }
+
+    // Restore the min-heap order after replacing the root
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        long item = heap[0];
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= item) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (size > 0) {
+            heap[i] = item;
+        }
+    }
+
+    /**
+     * Grow one RR set from a random root over live incoming edges
+     *
+     * @return the size of the set, whose members are left in queue
+     */
+    private int sample(SplittableRandom rnd, int[] inOffsets, int[] sources, double[] probability,
+            long[] visited, int[] queue) {
+        int root = 1 + rnd.nextInt(n - 1);
+        int tail = 0;
+        queue[tail++] = root;
+        visited[root >>> 6] |= 1L << root;
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                int u = sources[i];
+                if ((visited[u >>> 6] & (1L << u)) == 0 && rnd.nextDouble() < probability[i]) {
+                    visited[u >>> 6] |= 1L << u;
+                    queue[tail++] = u;
+                }
+            }
+        }
+        for (int i = 0; i < tail; i++) {
+            visited[queue[i] >>> 6] = 0;
+        }
+        return tail;
+    }
+
+    // ln of C(n, 0) + ... + C(n, k), adding the terms in log space
+    private static double logChooseUpTo(int n, int k) {
+        k = Math.min(k, n);
+        double term = 0;
+        double sum = 0;
+        for (int i = 0; i < k; i++) {
+            term += Math.log(n - i) - Math.log(i + 1);
+            double high = Math.max(sum, term);
+            sum = high + Math.log(Math.exp(sum - high) + Math.exp(term - high));
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Checks ShortestPathSearch against a textbook Dijkstra on a boxed
+ * java.util.PriorityQueue ordered by distance, and times both, on a random
+ * graph with the given number of nodes and average degree.
+ *
+ * Usage: java ShortestPathBenchmark [nodes] [avgDegree] [sources]
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class ShortestPathBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int avgDegree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int sources = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Random rnd = new Random(594);
+        Graph graph = randomGraph(n, avgDegree, rnd);
+        System.out.printf("%d nodes, %d directed edges%n", n, graph.edgeCount());
+
+        ShortestPathSearch search = new ShortestPathSearch(graph);
+        long heapNs = 0;
+        long queueNs = 0;
+        int maxQueue = 0;
+        for (int s = 0; s < sources; s++) {
+            int source = 1 + rnd.nextInt(n);
+            long start = System.nanoTime();
+            search.run(source);
+            heapNs += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            double[] expected = new double[n + 1];
+            maxQueue = Math.max(maxQueue, referenceDijkstra(graph, source, expected));
+            queueNs += System.nanoTime() - start;
+
+            for (int v = 1; v <= n; v++) {
+                if (Double.compare(expected[v], search.distance(v)) != 0) {
+                    throw new IllegalStateException("distance mismatch at node " + v
+                            + " from " + source + ": " + expected[v] + " != " + search.distance(v));
+                }
+            }
+        }
+        System.out.printf("indexed heap:  %10.1f ms/source%n", heapNs / 1e6 / sources);
+        System.out.printf("PriorityQueue: %10.1f ms/source (peak %d entries)%n",
+                queueNs / 1e6 / sources, maxQueue);
+    }
+
+    /**
+     * Lazy Dijkstra that pushes a new entry on every relaxation
+     * @return the peak queue size
+     */
+    private static int referenceDijkstra(Graph graph, int source, double[] dist) {
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> pq = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        NeighborCursor cursor = graph.neighborCursor();
+        dist[source] = 0;
+        pq.add(new double[] {0, source});
+        int peak = 1;
+        while (!pq.isEmpty()) {
+            double[] top = pq.poll();
+            int node = (int) top[1];
+            if (top[0] > dist[node]) {
+                continue;
+            }
+            cursor.reset(node);
+            while (cursor.next()) {
+                double temp = top[0] + cursor.weight();
+                if (temp < dist[cursor.target()]) {
+                    dist[cursor.target()] = temp;
+                    pq.add(new double[] {temp, cursor.target()});
+                }
+            }
+            peak = Math.max(peak, pq.size());
+        }
+        return peak;
+    }
+
+    private static Graph randomGraph(int n, int avgDegree, Random rnd) {
+        long m = (long) n * avgDegree / 2;
+        GraphCSR.Builder builder = new GraphCSR.Builder(n + 1, (int) (2 * m));
+        for (long i = 0; i < m; i++) {
+            int u = 1 + rnd.nextInt(n);
+            int v = 1 + rnd.nextInt(n);
+            double w = -Math.log(0.01 + 0.98 * rnd.nextDouble());
+            builder.addEdge(u, v, w);
+            builder.addEdge(v, u, w);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,247 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Dijkstra over the -log(p) edge weights, so the shortest distance to a node
+ * is the -log of the highest probability path to it. The search keeps its own
+ * distance and predecessor arrays instead of writing into the graph, and an
+ * instance can be reused for any number of searches on the same graph; only
+ * the nodes reached by the previous search are reset.
+ *
+ * A search can be given a set of removed nodes. They are treated as if all of
+ * their edges were deleted, so what-if scenarios can be evaluated without
+ * touching the shared graph.
+ *
+ * Ties are broken the same way by every search in this package, so they all
+ * return the same path. Among paths of equal distance the one with the
+ * fewest hops wins, and the predecessor of v is the lowest id u that ends
+ * such a path at v: dist[u] + w(u, v) == dist[v] and hops[u] + 1 == hops[v].
+ * The queue orders nodes by (distance, hops), which settles every such u
+ * before v.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class ShortestPathSearch implements SingleSourceSearch {
+
+    private final Graph graph;
+    private final BitSet removed;
+    private final double[] dist;
+    private final int[] hops;
+    private final int[] pred;
+    private final IndexedMinHeap heap;
+    private final NeighborCursor cursor;
+    private final int[] reached;
+    private int reachedCount;
+    private int settledCount;
+    private int prunedRelaxations;
+
+
+    /**
+     * @param graph the graph to search
+     */
+    public ShortestPathSearch(Graph graph) {
+        this(graph, null);
+    }
+
+
+    /**
+     * @param graph   the graph to search
+     * @param removed nodes to treat as disconnected, or null for none; the
+     *                set must not change while the search is in use
+     */
+    public ShortestPathSearch(Graph graph, BitSet removed) {
+        int n = graph.nodeCount();
+        this.graph = graph;
+        this.removed = removed;
+        this.dist = new double[n];
+        this.hops = new int[n];
+        this.pred = new int[n];
+        this.heap = new IndexedMinHeap(dist, hops);
+        this.cursor = graph.neighborCursor();
+        this.reached = new int[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    }
+
+
+    /**
+     * @return the graph this search runs on
+     */
+    @Override
+    public Graph graph() {
+        return graph;
+    }
+
+
+    /**
+     * Compute the distance from source to every reachable node
+     *
+     * @param source the start node
+     */
+    @Override
+    public void run(int source) {
+        run(source, -1);
+    }
+
+
+    /**
+     * Compute distances from source, stopping as soon as destination is
+     * settled. Nodes still in the queue at that point keep a tentative
+     * distance.
+     *
+     * @param source      the start node
+     * @param destination the node to stop at, or -1 to search everything
+     */
+    @Override
+    public void run(int source, int destination) {
+        run(source, destination, Double.POSITIVE_INFINITY);
+    }
+
+
+    /**
+     * Compute distances from source, ignoring every path longer than
+     * maxDistance. Such a path is dropped when it is relaxed, so the search
+     * only touches the part of the graph within maxDistance of the source.
+     * Nodes that are only reachable through longer paths count as not reached.
+     *
+     * @param source      the start node
+     * @param destination the node to stop at, or -1 to search everything
+     * @param maxDistance the longest distance worth exploring
+     */
+    @Override
+    public void run(int source, int destination, double maxDistance) {
+        reset();
+        if (removed != null && removed.get(source)) {
+            return;
+        }
+        touch(source, 0, 0);
+        heap.push(source);
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            settledCount++;
+            if (node == destination) {
+                break;
+            }
+            double d = dist[node];
+            int h = hops[node] + 1;
+            cursor.reset(node);
+            while (cursor.next()) {
+                int neighbor = cursor.target();
+                double temp = d + cursor.weight();
+                if (temp < dist[neighbor]) {
+                    if (removed != null && removed.get(neighbor)) {
+                        continue;
+                    }
+                    if (temp > maxDistance) {
+                        prunedRelaxations++;
+                        continue;
+                    }
+                    if (dist[neighbor] == Double.POSITIVE_INFINITY) {
+                        reached[reachedCount++] = neighbor;
+                    }
+                    dist[neighbor] = temp;
+                    hops[neighbor] = h;
+                    pred[neighbor] = node;
+                    heap.push(neighbor);
+                } else if (temp == dist[neighbor] && (h < hops[neighbor]
+                        || (h == hops[neighbor] && node < pred[neighbor]))) {
+                    // an equally good path: fewer hops, then the lower id
+                    hops[neighbor] = h;
+                    pred[neighbor] = node;
+                    heap.push(neighbor);
+                }
+            }
+        }
+        heap.clear();
+    }
+
+
+    /**
+     * @return the number of nodes the last search removed from the queue
+     *         with their final distance
+     */
+    @Override
+    public int settledCount() {
+        return settledCount;
+    }
+
+
+    /**
+     * @return the number of relaxations the last search dropped because
+     *         they went past maxDistance
+     */
+    @Override
+    public int prunedRelaxations() {
+        return prunedRelaxations;
+    }
+
+
+    /**
+     * @param v the node
+     * @return the -log probability of the best path to v, or positive
+     *         infinity if the last search did not reach v
+     */
+    @Override
+    public double distance(int v) {
+        return dist[v];
+    }
+
+
+    /**
+     * @param v the node
+     * @return the node before v on the best path, or 0 for the source and
+     *         for nodes the last search did not reach
+     */
+    @Override
+    public int predecessor(int v) {
+        return pred[v];
+    }
+
+
+    /**
+     * @param v the node
+     * @return true if the last search found a path to v
+     */
+    @Override
+    public boolean reached(int v) {
+        return dist[v] != Double.POSITIVE_INFINITY;
+    }
+
+
+    /**
+     * @return the number of nodes the last search found a path to
+     */
+    @Override
+    public int reachedCount() {
+        return reachedCount;
+    }
+
+
+    /**
+     * @param i index between 0 and reachedCount() - 1
+     * @return the i-th node the last search found a path to, in the order
+     *         they were first reached
+     */
+    @Override
+    public int reachedNode(int i) {
+        return reached[i];
+    }
+
+
+    private void touch(int v, double d, int from) {
+        reached[reachedCount++] = v;
+        dist[v] = d;
+        hops[v] = 0;
+        pred[v] = from;
+    }
+
+
+    private void reset() {
+        for (int i = 0; i < reachedCount; i++) {
+            dist[reached[i]] = Double.POSITIVE_INFINITY;
+            pred[reached[i]] = 0;
+        }
+        reachedCount = 0;
+        settledCount = 0;
+        prunedRelaxations = 0;
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.Arrays;
+
+/**
+ * A frozen copy of the distances and predecessors a SingleSourceSearch
+ * found from one source. The path to any reached node is then a walk up the
+ * predecessors, with no search at all.
+ *
+ * Trees from sources that reach most of the graph are stored densely, one
+ * slot per node. Trees that reach only a few nodes keep just those nodes,
+ * sorted by id, and look them up with a binary search. Whichever layout
+ * needs fewer bytes is used, and {@link #bytes()} reports the size so that
+ * a cache can budget by memory rather than by entry count.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class ShortestPathTree {
+
+    private final int source;
+    private final int reachedCount;
+    // null for the dense layout, otherwise the reached nodes in id order
+    private final int[] nodes;
+    private final double[] dist;
+    private final int[] pred;
+
+
+    /**
+     * @param search a search that has just run from source over the whole
+     *               graph, without a destination or a distance bound
+     * @param source the node the search ran from
+     */
+    public ShortestPathTree(SingleSourceSearch search, int source) {
+        int n = search.graph().nodeCount();
+        int count = search.reachedCount();
+        this.source = source;
+        this.reachedCount = count;
+        if ((long) count * 16 < (long) n * 12) {
+            nodes = new int[count];
+            for (int i = 0; i < count; i++) {
+                nodes[i] = search.reachedNode(i);
+            }
+            Arrays.sort(nodes);
+            dist = new double[count];
+            pred = new int[count];
+            for (int i = 0; i < count; i++) {
+                dist[i] = search.distance(nodes[i]);
+                pred[i] = search.predecessor(nodes[i]);
+            }
+        } else {
+            nodes = null;
+            dist = new double[n];
+            pred = new int[n];
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < count; i++) {
+                int v = search.reachedNode(i);
+                dist[v] = search.distance(v);
+                pred[v] = search.predecessor(v);
+            }
+        }
+    }
+
+
+    /**
+     * @return the node the tree is rooted at
+     */
+    public int source() {
+        return source;
+    }
+
+
+    /**
+     * @param v the node
+     * @return the -log probability of the best path to v, or positive
+     *         infinity if v cannot be reached
+     */
+    public double distance(int v) {
+        int i = slot(v);
+        return i < 0 ? Double.POSITIVE_INFINITY : dist[i];
+    }
+
+
+    /**
+     * @param v the node
+     * @return the node before v on the best path, or 0 for the source and
+     *         for nodes that cannot be reached
+     */
+    public int predecessor(int v) {
+        int i = slot(v);
+        return i < 0 ? 0 : pred[i];
+    }
+
+
+    /**
+     * @param v the node
+     * @return true if there is a path from the source to v
+     */
+    public boolean reached(int v) {
+        return distance(v) != Double.POSITIVE_INFINITY;
+    }
+
+
+    /**
+     * @return the number of nodes reachable from the source, itself included
+     */
+    public int reachedCount() {
+        return reachedCount;
+    }
+
+
+    /**
+     * Walk the predecessors back from destination, in O(path length)
+     *
+     * @param destination the last node of the path
+     * @return the nodes from the source to destination, both included, or
+     *         an empty array if destination cannot be reached
+     */
+    public int[] path(int destination) {
+        return transmissionPath(destination).nodes();
+    }
+
+
+    /**
+     * @param destination the last node of the path
+     * @return the path from the source to destination with the probability
+     *         of every hop
+     */
+    public TransmissionPath transmissionPath(int destination) {
+        return TransmissionPath.walk(source, destination, this::predecessor, this::distance,
+                Math.max(1, reachedCount));
+    }
+
+
+    /**
+     * @return the approximate heap size of the tree in bytes
+     */
+    public long bytes() {
+        long entries = dist.length;
+        return 48 + entries * 12 + (nodes == null ? 0 : entries * 4);
+    }
+
+    // Index of v in the arrays, or -1 if v was not reached
+    private int slot(int v) {
+        if (nodes != null) {
+            return Arrays.binarySearch(nodes, v);
+        }
+        return v >= 0 && v < dist.length && dist[v] != Double.POSITIVE_INFINITY ? v : -1;
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.BitSet;
+
+/**
+ * Shortest distances from one source over the -log(p) edge weights, so the
+ * distance to a node is the -log of the highest probability path to it.
+ * ShortestPathSearch is the sequential Dijkstra and DeltaSteppingSearch the
+ * parallel one. They find bit-for-bit the same distances and the same
+ * predecessors, ties included.
+ *
+ * An instance can be reused for any number of searches on the same graph
+ * but must not be shared between threads.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public interface SingleSourceSearch {
+    /**
+     * @param graph       the graph to search
+     * @param removed     nodes to treat as disconnected, or null for none
+     * @param bucketWidth 0 for the sequential Dijkstra, otherwise the bucket
+     *                    width of a DeltaSteppingSearch
+     * @return a new search
+     */
+    static SingleSourceSearch create(Graph graph, BitSet removed, double bucketWidth) {
+        if (bucketWidth > 0) {
+            return new DeltaSteppingSearch(graph, removed, bucketWidth);
+        }
+        return new ShortestPathSearch(graph, removed);
+    }
+
+
+    /**
+     * @return the graph this search runs on
+     */
+    Graph graph();
+
+
+    /**
+     * Compute the distance from source to every reachable node
+     *
+     * @param source the start node
+     */
+    void run(int source);
+
+
+    /**
+     * Compute distances from source, stopping once the distance to
+     * destination is final. Nodes farther away may keep a tentative
+     * distance.
+     *
+     * @param source      the start node
+     * @param destination the node to stop at, or -1 to search everything
+     */
+    void run(int source, int destination);
+
+
+    /**
+     * Like run(source, destination), but never extends a path past
+     * maxDistance. Nodes only reachable beyond it are left unreached.
+     *
+     * @param source      the start node
+     * @param destination the node to stop at, or -1 to search everything
+     * @param maxDistance the longest distance worth exploring
+     */
+    void run(int source, int destination, double maxDistance);
+
+
+    /**
+     * @return the number of nodes the last search finalized
+     */
+    int settledCount();
+
+
+    /**
+     * @return the number of relaxations the last search dropped because
+     *         they went past maxDistance
+     */
+    int prunedRelaxations();
+
+
+    /**
+     * @param v the node
+     * @return the -log probability of the best path to v, or positive
+     *         infinity if the last search did not reach v
+     */
+    double distance(int v);
+
+
+    /**
+     * @param v the node
+     * @return the node before v on the best path, or 0 for the source and
+     *         for nodes the last search did not reach
+     */
+    int predecessor(int v);
+
+
+    /**
+     * @param v the node
+     * @return true if the last search found a path to v
+     */
+    boolean reached(int v);
+
+
+    /**
+     * @return the number of nodes the last search found a path to
+     */
+    int reachedCount();
+
+
+    /**
+     * @param i index between 0 and reachedCount() - 1
+     * @return the i-th node the last search found a path to
+     */
+    int reachedNode(int i);
+}
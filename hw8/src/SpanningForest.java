@@ -0,0 +1,198 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Minimum spanning forest of the edge weights, computed with Boruvka's
+ * algorithm. Weights are -log(probability), so this is also the forest of
+ * highest transmission probability. Node 0 is left out.
+ *
+ * The undirected edges are copied once into primitive arrays. Each round
+ * then works in three steps:
+ * <ul>
+ * <li>every component picks its lightest outgoing edge, in parallel, with
+ * a compare-and-set on the component's slot;</li>
+ * <li>the picked edges are merged through a {@link UnionFind};</li>
+ * <li>edges that now fall inside one component are filtered out.</li>
+ * </ul>
+ * Every round at least halves the number of components, so there are at
+ * most log V rounds. Ties on weight are broken by edge order, which makes
+ * the forest unique and equal to the one Kruskal's algorithm finds when no
+ * two weights are the same.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class SpanningForest {
+
+    private final int[] from;
+    private final int[] to;
+    private final double[] weight;
+    private final int[] forest;
+    private int rounds;
+
+
+    /**
+     * @param g an undirected graph (every edge stored in both directions)
+     */
+    public SpanningForest(Graph g) {
+        int n = g.nodeCount();
+        int m = 0;
+        NeighborCursor cursor = g.neighborCursor();
+        for (int u = 1; u < n; u++) {
+            cursor.reset(u);
+            while (cursor.next()) {
+                if (cursor.target() > u) {
+                    m++;
+                }
+            }
+        }
+        from = new int[m];
+        to = new int[m];
+        weight = new double[m];
+        int e = 0;
+        for (int u = 1; u < n; u++) {
+            cursor.reset(u);
+            while (cursor.next()) {
+                if (cursor.target() > u) {
+                    from[e] = u;
+                    to[e] = cursor.target();
+                    weight[e] = cursor.weight();
+                    e++;
+                }
+            }
+        }
+        forest = boruvka(n);
+    }
+
+
+    /**
+     * @return the number of edges in the forest
+     */
+    public int size() {
+        return forest.length;
+    }
+
+
+    /**
+     * @param i the position in the forest, ordered by ascending weight
+     * @return the smaller endpoint of the i-th forest edge
+     */
+    public int left(int i) {
+        return from[forest[i]];
+    }
+
+
+    /**
+     * @param i the position in the forest, ordered by ascending weight
+     * @return the larger endpoint of the i-th forest edge
+     */
+    public int right(int i) {
+        return to[forest[i]];
+    }
+
+
+    /**
+     * @param i the position in the forest, ordered by ascending weight
+     * @return the weight of the i-th forest edge
+     */
+    public double weight(int i) {
+        return weight[forest[i]];
+    }
+
+
+    /**
+     * @return the number of Boruvka rounds it took
+     */
+    public int rounds() {
+        return rounds;
+    }
+
+    private int[] boruvka(int n) {
+        UnionFind components = new UnionFind(n);
+        int[] chosen = new int[Math.max(0, n - 1)];
+        int size = 0;
+        int[] comp = new int[n];
+        int[] active = IntStream.range(0, from.length).toArray();
+        while (active.length > 0) {
+            rounds++;
+            IntStream.range(0, n).parallel().forEach(v -> comp[v] = components.root(v));
+
+            // lightest edge out of each component, stored as edge id + 1
+            AtomicIntegerArray best = new AtomicIntegerArray(n);
+            int[] edges = active;
+            IntStream.range(0, edges.length).parallel().forEach(k -> {
+                int e = edges[k];
+                int cu = comp[from[e]];
+                int cv = comp[to[e]];
+                if (cu != cv) {
+                    offer(best, cu, e);
+                    offer(best, cv, e);
+                }
+            });
+
+            boolean merged = false;
+            for (int c = 0; c < n; c++) {
+                int e = best.get(c) - 1;
+                if (e >= 0 && components.union(from[e], to[e])) {
+                    chosen[size++] = e;
+                    merged = true;
+                }
+            }
+            if (!merged) {
+                break;
+            }
+            active = IntStream.of(active).parallel()
+                    .filter(e -> components.root(from[e]) != components.root(to[e]))
+                    .toArray();
+        }
+        return byWeight(Arrays.copyOf(chosen, size));
+    }
+
+    /**
+     * Sort edge ids into the lighter order without boxing: each id is packed
+     * under the rank of its weight among the distinct weights into one long,
+     * and the longs are sorted as primitives.
+     */
+    private int[] byWeight(int[] edges) {
+        double[] distinct = new double[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            distinct[i] = weight[edges[i]];
+        }
+        Arrays.sort(distinct);
+        int count = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (count == 0 || distinct[i] != distinct[count - 1]) {
+                distinct[count++] = distinct[i];
+            }
+        }
+        long[] keys = new long[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            long rank = Arrays.binarySearch(distinct, 0, count, weight[edges[i]]);
+            keys[i] = rank << 32 | edges[i];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[edges.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    // Make e the choice of component c if it beats the current one
+    private void offer(AtomicIntegerArray best, int c, int e) {
+        while (true) {
+            int current = best.get(c) - 1;
+            if (current >= 0 && !lighter(e, current)) {
+                return;
+            }
+            if (best.compareAndSet(c, current + 1, e + 1)) {
+                return;
+            }
+        }
+    }
+
+    // Total order on edges: by weight, then by id
+    private boolean lighter(int a, int b) {
+        return weight[a] < weight[b] || (weight[a] == weight[b] && a < b);
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Times the InformationSpread operations on a synthetic graph and reports
+ * the results as JSON, so runs from different builds can be compared by a
+ * script. Every case runs on both graph representations, the default
+ * GraphL and the compact GraphCSR, and each result names the one it used.
+ * Each benchmark gets warmup iterations that are not recorded and then
+ * measured iterations. Operations that change the graph or cache results
+ * (the removals and clustCoeffNodes) run on a fresh instance, loaded from a
+ * snapshot outside the timed region, on every iteration.
+ *
+ * Usage: java SpreadBenchmark [er|powerlaw|ws|ba|grid] [nodes] [avgDegree] [iterations]
+ *        [out.json]
+ *
+ * Without out.json the report goes to standard output.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class SpreadBenchmark {
+
+    private static final double THRESHOLD = 0.1;
+    private static final int WARMUP = 2;
+
+    private static long blackhole;
+
+    public static void main(String[] args) throws IOException {
+        GraphGenerator.Shape shape = args.length > 0 ? GraphGenerator.Shape.parse(args[0])
+                : GraphGenerator.Shape.ERDOS_RENYI;
+        int nodes = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int degree = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        GraphGenerator generator = new GraphGenerator(shape, nodes, degree, 594);
+        File mtx = File.createTempFile("bench", ".mtx");
+        File snapshot = File.createTempFile("bench", ".snap");
+        mtx.deleteOnExit();
+        snapshot.deleteOnExit();
+        generator.writeMtx(mtx.getPath());
+        InformationSpread probe = new InformationSpread(true);
+        probe.loadGraphFromDataSet(mtx.getPath());
+        probe.saveSnapshot(snapshot.getPath(), null);
+        // repeated random pairs collapse on loading, so count what was kept
+        long edges = IntStream.rangeClosed(1, nodes).mapToLong(probe::degree).sum() / 2;
+
+        // remove the most common degree so the removal benchmarks have work to do
+        int[] histogram = probe.degreeHistogram();
+        int common = 1;
+        for (int d = 1; d < histogram.length; d++) {
+            if (histogram[d] > histogram[common]) {
+                common = d;
+            }
+        }
+        int removedDegree = common;
+
+        List<Integer> vaccinated = new ArrayList<>();
+        Random rnd = new Random(594);
+        for (int i = 0; i < nodes / 100; i++) {
+            vaccinated.add(2 + rnd.nextInt(nodes - 1));
+        }
+
+        List<Case> cases = new ArrayList<>();
+        cases.add(new Case("loadGraphFromDataSet", true,
+            inf -> inf.loadGraphFromDataSet(mtx.getPath())));
+        cases.add(new Case("longestTransmissionPath", false,
+            inf -> inf.longestTransmissionPath(1, nodes).size()));
+        cases.add(new Case("transfectionRate", false, inf -> inf.transfectionRate(1, THRESHOLD)));
+        cases.add(new Case("maxSpanningTreePrim", false, inf -> inf.maxSpanningTreePrim().length));
+        cases.add(new Case("maxSpanningTreeKruskal", false,
+            inf -> inf.maxSpanningTreeKruskal().size()));
+        cases.add(new Case("clustCoeffNodes", true, inf -> inf.clustCoeffNodes(0, 0.2).size()));
+        cases.add(new Case("removeNodesDegree", true,
+            inf -> inf.removeNodesDegree(removedDegree).size()));
+        cases.add(new Case("transfectionRateDegree", false,
+            inf -> inf.transfectionRateDegree(1, THRESHOLD, removedDegree)));
+        cases.add(new Case("transfectionRateCC", true,
+            inf -> inf.transfectionRateCC(1, THRESHOLD, 0, 0.1)));
+        cases.add(new Case("transfectionRateVaccine", false,
+            inf -> inf.transfectionRateVaccine(1, THRESHOLD, vaccinated)));
+        cases.add(new Case("removeVaccinated", true, inf -> {
+            inf.removeVaccinated(vaccinated);
+            return inf.degree(1);
+        }));
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"shape\": \"").append(shape.key()).append("\",\n");
+        json.append("  \"nodes\": ").append(nodes).append(",\n");
+        json.append("  \"avgDegree\": ").append(degree).append(",\n");
+        json.append("  \"edges\": ").append(edges).append(",\n");
+        json.append("  \"removedDegree\": ").append(removedDegree).append(",\n");
+        json.append("  \"iterations\": ").append(iterations).append(",\n");
+        json.append("  \"warmup\": ").append(WARMUP).append(",\n");
+        json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        int cores = Runtime.getRuntime().availableProcessors();
+        json.append("  \"cores\": ").append(cores).append(",\n");
+        json.append("  \"unit\": \"ms\",\n");
+        json.append("  \"results\": [\n");
+        boolean[] representations = {false, true};
+        for (int r = 0; r < representations.length; r++) {
+            boolean compact = representations[r];
+            String graph = compact ? "GraphCSR" : "GraphL";
+            InformationSpread shared = new InformationSpread(compact);
+            shared.loadGraphFromSnapshot(snapshot.getPath(), null);
+            for (int c = 0; c < cases.size(); c++) {
+                Case bench = cases.get(c);
+                double[] times = new double[iterations];
+                for (int i = -WARMUP; i < iterations; i++) {
+                    InformationSpread inf = shared;
+                    if (bench.fresh) {
+                        inf = new InformationSpread(compact);
+                        inf.loadGraphFromSnapshot(snapshot.getPath(), null);
+                    }
+                    long start = System.nanoTime();
+                    Object result = bench.body.apply(inf);
+                    double ms = (System.nanoTime() - start) / 1e6;
+                    blackhole += result.hashCode();
+                    if (i >= 0) {
+                        times[i] = ms;
+                    }
+                }
+                json.append("    ").append(result(bench.name, graph, times));
+                boolean last = r + 1 == representations.length && c + 1 == cases.size();
+                json.append(last ? "\n" : ",\n");
+                System.err.printf("%-9s %-26s %10.2f ms%n", graph, bench.name, mean(times));
+            }
+        }
+        json.append("  ],\n");
+        json.append("  \"checksum\": ").append(blackhole).append("\n");
+        json.append("}\n");
+
+        if (args.length > 4) {
+            try (PrintStream out = new PrintStream(args[4], "UTF-8")) {
+                out.print(json);
+            }
+        } else {
+            System.out.print(json);
+        }
+    }
+
+    private static String result(String name, String graph, double[] times) {
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (double t: times) {
+            min = Math.min(min, t);
+            max = Math.max(max, t);
+        }
+        double mean = mean(times);
+        double var = 0;
+        for (double t: times) {
+            var += (t - mean) * (t - mean);
+        }
+        double stdev = times.length > 1 ? Math.sqrt(var / (times.length - 1)) : 0;
+        return String.format(Locale.ROOT, "{\"benchmark\": \"%s\", \"graph\": \"%s\", "
+                + "\"mean\": %.4f, \"min\": %.4f, \"max\": %.4f, \"stdev\": %.4f}",
+                name, graph, mean, min, max, stdev);
+    }
+
+    private static double mean(double[] times) {
+        double sum = 0;
+        for (double t: times) {
+            sum += t;
+        }
+        return times.length == 0 ? 0 : sum / times.length;
+    }
+
+    /**
+     * One timed operation. fresh asks for a newly loaded instance on every
+     * iteration.
+     */
+    private static final class Case {
+        private final String name;
+        private final boolean fresh;
+        private final Function<InformationSpread, Object> body;
+
+        Case(String name, boolean fresh, Function<InformationSpread, Object> body) {
+            this.name = name;
+            this.fresh = fresh;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Greedy choice of k nodes with lazy evaluation (CELF). Every candidate gets
+ * its marginal gain estimated once, all candidates in parallel, and goes
+ * into a max-heap. After that, each pick pops the top candidate. If its gain
+ * was computed against the current selection, it is taken. Otherwise its gain
+ * is recomputed and it is pushed back. Gains can only shrink as the
+ * selection grows, so a stale gain is an upper bound, and most candidates
+ * never need re-evaluation.
+ *
+ * Spread is estimated by a CascadeSimulator over one flattened graph.
+ * Vaccinated nodes are masked out of it instead of being removed from the
+ * graph. Every estimate uses the same random seed (common random numbers),
+ * so differences between candidates are not lost in simulation noise.
+ *
+ * Seed selection is submodular under the independent cascade, so the greedy
+ * answer is within 1 - 1/e of the best one. Vaccination is not always
+ * submodular, and there the lazy greedy is a heuristic.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class SpreadOptimizer {
+
+    private final CascadeSimulator simulator;
+    private final int simulations;
+    private final long seed;
+    private final AtomicLong evaluations = new AtomicLong();
+
+
+    /**
+     * @param simulator   the cascade model to optimize over
+     * @param simulations the number of cascades per spread estimate
+     * @param seed        the random seed shared by all estimates
+     */
+    public SpreadOptimizer(CascadeSimulator simulator, int simulations, long seed) {
+        this.simulator = simulator;
+        this.simulations = simulations;
+        this.seed = seed;
+    }
+
+
+    /**
+     * Pick up to k seeds that together infect the most nodes
+     *
+     * @param k          the number of seeds, at least 0
+     * @param candidates the nodes to choose from
+     * @return the seeds in the order they were picked
+     */
+    public SpreadSelection maximizeSeeds(int k, int[] candidates) {
+        checkCount(k);
+        evaluations.set(0);
+        return select(k, candidates, null, 0);
+    }
+
+
+    /**
+     * Pick up to k nodes whose vaccination leaves the sources infecting the
+     * fewest nodes. The sources are already infected, so they are never
+     * picked.
+     *
+     * @param sources    the initially infected nodes
+     * @param k          the number of nodes to vaccinate, at least 0
+     * @param candidates the nodes to choose from
+     * @return the nodes to vaccinate in the order they were picked
+     */
+    public SpreadSelection chooseVaccinations(int[] sources, int k, int[] candidates) {
+        checkCount(k);
+        evaluations.set(0);
+        BitSet infected = new BitSet();
+        for (int s: sources) {
+            infected.set(s);
+        }
+        int[] healthy = IntStream.of(candidates).filter(v -> !infected.get(v)).toArray();
+        double initial = spread(sources, new BitSet());
+        return select(k, healthy, sources, initial);
+    }
+
+    private static void checkCount(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("number of picks must be >= 0, was " + k);
+        }
+    }
+
+    /**
+     * The lazy greedy loop shared by both objectives. With sources == null
+     * the picks are seeds and the gain is the added spread. Otherwise the
+     * picks are vaccinated and the gain is the spread taken away.
+     */
+    private SpreadSelection select(int k, int[] candidates, int[] sources, double initial) {
+        int[] picked = new int[Math.min(k, candidates.length)];
+        double[] spread = new double[picked.length];
+        BitSet chosen = new BitSet();
+        double current = initial;
+
+        double base = current;
+        Entry[] first = IntStream.of(candidates).distinct().parallel()
+                .mapToObj(v -> new Entry(v, gain(v, chosen, sources, base), 0))
+                .toArray(Entry[]::new);
+        PriorityQueue<Entry> heap = new PriorityQueue<>(Math.max(1, first.length));
+        heap.addAll(Arrays.asList(first));
+
+        int size = 0;
+        while (size < picked.length && !heap.isEmpty()) {
+            Entry top = heap.poll();
+            if (top.round == size) {
+                picked[size] = top.node;
+                chosen.set(top.node);
+                current += sources == null ? top.gain : -top.gain;
+                spread[size] = current;
+                size++;
+            } else {
+                top.gain = gain(top.node, chosen, sources, current);
+                top.round = size;
+                heap.add(top);
+            }
+        }
+        return new SpreadSelection(Arrays.copyOf(picked, size), Arrays.copyOf(spread, size),
+                initial, evaluations.get());
+    }
+
+    // Marginal gain of adding v to the chosen set
+    private double gain(int v, BitSet chosen, int[] sources, double current) {
+        if (sources == null) {
+            int[] seeds = new int[chosen.cardinality() + 1];
+            int i = 0;
+            for (int s = chosen.nextSetBit(0); s >= 0; s = chosen.nextSetBit(s + 1)) {
+                seeds[i++] = s;
+            }
+            seeds[i] = v;
+            return spread(seeds, null) - current;
+        }
+        BitSet removed = (BitSet) chosen.clone();
+        removed.set(v);
+        return current - spread(sources, removed);
+    }
+
+    private double spread(int[] seeds, BitSet removed) {
+        evaluations.incrementAndGet();
+        return simulator.simulate(seeds, simulations, seed, removed).mean();
+    }
+
+    /**
+     * A candidate with its last computed gain and the number of picks made
+     * when it was computed
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final int node;
+        private double gain;
+        private int round;
+
+        Entry(int node, double gain, int round) {
+            this.node = node;
+            this.gain = gain;
+            this.round = round;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            // larger gain first, then lower id, so the order is deterministic
+            int c = Double.compare(other.gain, gain);
+            return c != 0 ? c : Integer.compare(node, other.node);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * The outcome of a threshold-bounded spread search: which nodes get infected,
+ * and how much of the graph the search had to look at to find out.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class SpreadResult {
+
+    private final int[] infected;
+    private final int nodes;
+    private final int settled;
+    private final int prunedRelaxations;
+
+
+    /**
+     * @param infected          the infected node ids, ascending
+     * @param nodes             the number of nodes in the graph, not counting
+     *                          node 0
+     * @param settled           the number of nodes the search settled
+     * @param prunedRelaxations the number of edge relaxations cut off by the
+     *                          threshold
+     */
+    public SpreadResult(int[] infected, int nodes, int settled, int prunedRelaxations) {
+        this.infected = infected;
+        this.nodes = nodes;
+        this.settled = settled;
+        this.prunedRelaxations = prunedRelaxations;
+    }
+
+
+    /**
+     * @return the infected node ids in ascending order
+     */
+    public int[] infected() {
+        return infected.clone();
+    }
+
+
+    /**
+     * @return the number of infected nodes
+     */
+    public int count() {
+        return infected.length;
+    }
+
+
+    /**
+     * @return the percentage of the nodes that catch the disease, the same
+     *         value transfectionRate returns
+     */
+    public double rate() {
+        return (double) infected.length / nodes;
+    }
+
+
+    /**
+     * @return the number of nodes the search settled
+     */
+    public int settled() {
+        return settled;
+    }
+
+
+    /**
+     * @return the number of nodes the search never had to settle
+     */
+    public int skipped() {
+        return nodes - settled;
+    }
+
+
+    /**
+     * @return the number of edge relaxations dropped because the path was
+     *         already below the threshold, counted per edge and not per
+     *         node, so it can exceed the node counts above
+     */
+    public int prunedRelaxations() {
+        return prunedRelaxations;
+    }
+
+
+    @Override
+    public String toString() {
+        return "SpreadResult[infected=" + infected.length + "/" + nodes
+                + ", settled=" + settled + ", skipped=" + skipped()
+                + ", prunedRelaxations=" + prunedRelaxations + "]";
+    }
+}
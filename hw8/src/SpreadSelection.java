@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+/**
+ * The nodes a SpreadOptimizer picked, in the order it picked them, with the
+ * estimated spread after each pick.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class SpreadSelection {
+
+    private final int[] nodes;
+    private final double[] spread;
+    private final double initial;
+    private final long evaluations;
+
+
+    /**
+     * @param nodes       the picked nodes, in order
+     * @param spread      the expected infected fraction after each pick
+     * @param initial     the expected infected fraction before any pick
+     * @param evaluations the number of spread estimates the search made
+     */
+    public SpreadSelection(int[] nodes, double[] spread, double initial, long evaluations) {
+        this.nodes = nodes;
+        this.spread = spread;
+        this.initial = initial;
+        this.evaluations = evaluations;
+    }
+
+
+    /**
+     * @return the picked nodes, best first
+     */
+    public int[] nodes() {
+        return nodes.clone();
+    }
+
+
+    /**
+     * @return the number of nodes picked
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+
+    /**
+     * @param i the pick, from 0
+     * @return the expected infected fraction with the first i + 1 picks
+     */
+    public double spread(int i) {
+        return spread[i];
+    }
+
+
+    /**
+     * @return the expected infected fraction before any pick
+     */
+    public double initialSpread() {
+        return initial;
+    }
+
+
+    /**
+     * @return the expected infected fraction with all picks, or the initial
+     *         spread if nothing was picked
+     */
+    public double finalSpread() {
+        return nodes.length == 0 ? initial : spread[nodes.length - 1];
+    }
+
+
+    /**
+     * @return the number of Monte-Carlo spread estimates the search needed,
+     *         0 when the picks came from an RRSetIndex
+     */
+    public long evaluations() {
+        return evaluations;
+    }
+
+
+    @Override
+    public String toString() {
+        return "SpreadSelection[nodes=" + Arrays.toString(nodes)
+                + ", spread " + initial + " -> " + finalSpread()
+                + ", evaluations=" + evaluations + "]";
+    }
+}
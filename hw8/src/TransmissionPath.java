@@ -0,0 +1,265 @@
+import java.io.IOException;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The most probable path from a source to a destination, as primitive
+ * arrays: the nodes in order and the -log probability of reaching each of
+ * them. The path is rebuilt from a predecessor array by walking back from
+ * the destination in a loop, so its length is bounded by memory, not by the
+ * call stack.
+ *
+ * A destination the source cannot reach gives a path with reachable()
+ * false and no nodes. A path from a node to itself has the one node and
+ * probability 1. A path found by a point-to-point search also carries the
+ * number of nodes that search settled, for comparing search modes. Very
+ * long paths can be written hop by hop with forEachHop or writeTo without
+ * building a collection or a string, and toString shows only both ends.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class TransmissionPath {
+
+    // nodes toString prints at each end of a long path
+    private static final int SHOWN = 4;
+
+    /**
+     * Receives the hops of a path one at a time, from the source on
+     */
+    public interface HopSink {
+        /**
+         * @param from - the infected node
+         * @param to   - the node it passes the disease to
+         * @param p    - the transmission probability of the hop
+         * @throws IOException if the hop cannot be written
+         */
+        void hop(int from, int to, double p) throws IOException;
+    }
+
+    private final int source;
+    private final int destination;
+    private final int[] nodes;
+    private final double[] dist;
+    private final int settledCount;
+
+
+    /**
+     * @param source      the first node
+     * @param destination the last node
+     * @param nodes       the nodes from source to destination, or an empty
+     *                    array if destination cannot be reached
+     * @param dist        the -log probability of the path up to each node
+     */
+    public TransmissionPath(int source, int destination, int[] nodes, double[] dist) {
+        this(source, destination, nodes, dist, 0);
+    }
+
+
+    private TransmissionPath(int source, int destination, int[] nodes, double[] dist,
+            int settledCount) {
+        this.source = source;
+        this.destination = destination;
+        this.nodes = nodes;
+        this.dist = dist;
+        this.settledCount = settledCount;
+    }
+
+
+    /**
+     * @param settled the number of nodes the search that found this path
+     *                settled
+     * @return the same path carrying that count
+     */
+    public TransmissionPath withSettledCount(int settled) {
+        return new TransmissionPath(source, destination, nodes, dist, settled);
+    }
+
+
+    /**
+     * Rebuild a path by following predecessors back from destination
+     *
+     * @param source      the root of the predecessors
+     * @param destination the last node
+     * @param pred        the node before each node on its best path
+     * @param dist        the -log probability of each node's best path,
+     *                    infinite if it has none
+     * @param maxNodes    a bound on the path length, normally the number of
+     *                    nodes in the graph, to catch predecessor cycles
+     * @return the path, unreachable if dist is infinite at destination
+     */
+    public static TransmissionPath walk(int source, int destination, IntUnaryOperator pred,
+            IntToDoubleFunction dist, int maxNodes) {
+        if (dist.applyAsDouble(destination) == Double.POSITIVE_INFINITY) {
+            return new TransmissionPath(source, destination, new int[0], new double[0]);
+        }
+        int length = 1;
+        for (int v = destination; v != source; v = pred.applyAsInt(v)) {
+            if (++length > maxNodes) {
+                throw new IllegalStateException("predecessors of " + destination
+                        + " do not lead back to " + source);
+            }
+        }
+        int[] nodes = new int[length];
+        double[] d = new double[length];
+        int v = destination;
+        for (int i = length - 1; i >= 0; i--) {
+            nodes[i] = v;
+            d[i] = dist.applyAsDouble(v);
+            v = pred.applyAsInt(v);
+        }
+        return new TransmissionPath(source, destination, nodes, d);
+    }
+
+
+    /**
+     * @param search      a search that has run from source
+     * @param source      the node the search ran from
+     * @param destination the last node
+     * @return the best path the search found to destination
+     */
+    public static TransmissionPath of(SingleSourceSearch search, int source, int destination) {
+        int n = search.graph().nodeCount();
+        if (destination < 0 || destination >= n) {
+            return new TransmissionPath(source, destination, new int[0], new double[0]);
+        }
+        return walk(source, destination, search::predecessor, search::distance, n);
+    }
+
+
+    /**
+     * @return false if there is no path at all
+     */
+    public boolean reachable() {
+        return nodes.length > 0;
+    }
+
+
+    /**
+     * @return the first node
+     */
+    public int source() {
+        return source;
+    }
+
+
+    /**
+     * @return the last node
+     */
+    public int destination() {
+        return destination;
+    }
+
+
+    /**
+     * @return the number of nodes on the path, 0 if it is unreachable
+     */
+    public int length() {
+        return nodes.length;
+    }
+
+
+    /**
+     * @return the number of edges on the path
+     */
+    public int hops() {
+        return Math.max(0, nodes.length - 1);
+    }
+
+
+    /**
+     * @param i the position, from 0 at the source
+     * @return the node at that position
+     */
+    public int node(int i) {
+        return nodes[i];
+    }
+
+
+    /**
+     * @return the nodes from source to destination
+     */
+    public int[] nodes() {
+        return nodes.clone();
+    }
+
+
+    /**
+     * @return the number of nodes the point-to-point search that found this
+     *         path settled, or 0 if it was read from a shortest-path tree
+     */
+    public int settledCount() {
+        return settledCount;
+    }
+
+
+    /**
+     * @return the probability that the disease takes the whole path, 0 if
+     *         there is none
+     */
+    public double probability() {
+        return reachable() ? Math.exp(-dist[dist.length - 1]) : 0;
+    }
+
+
+    /**
+     * @param i the position, from 0 at the source
+     * @return the probability that the disease gets as far as node(i)
+     */
+    public double probabilityTo(int i) {
+        return Math.exp(-dist[i]);
+    }
+
+
+    /**
+     * @param i the hop, from 0 for the one leaving the source
+     * @return the transmission probability from node(i) to node(i + 1)
+     */
+    public double hopProbability(int i) {
+        return Math.exp(dist[i] - dist[i + 1]);
+    }
+
+
+    /**
+     * @param sink receives every hop in order
+     * @throws IOException if the sink does
+     */
+    public void forEachHop(HopSink sink) throws IOException {
+        for (int i = 0; i + 1 < nodes.length; i++) {
+            sink.hop(nodes[i], nodes[i + 1], hopProbability(i));
+        }
+    }
+
+
+    /**
+     * Write one line per hop, "from to p", or "unreachable"
+     *
+     * @param out where to write
+     * @throws IOException if out does
+     */
+    public void writeTo(Appendable out) throws IOException {
+        if (!reachable()) {
+            out.append("unreachable\n");
+            return;
+        }
+        forEachHop((u, v, p) -> out.append(Integer.toString(u)).append(' ')
+                .append(Integer.toString(v)).append(' ').append(Double.toString(p)).append('\n'));
+    }
+
+
+    @Override
+    public String toString() {
+        if (!reachable()) {
+            return "TransmissionPath[" + source + " -> " + destination + " unreachable]";
+        }
+        StringBuilder sb = new StringBuilder("TransmissionPath[");
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes.length > 2 * SHOWN && i == SHOWN) {
+                sb.append("... -> ");
+                i = nodes.length - SHOWN;
+            }
+            sb.append(nodes[i]).append(i + 1 < nodes.length ? " -> " : "");
+        }
+        return sb.append(", ").append(hops()).append(" hops, p=").append(probability())
+                .append("]").toString();
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Disjoint sets over the ids 0 .. n - 1 with union by rank and path halving,
+ * both on primitive arrays. find is iterative, so long chains cannot
+ * overflow the stack, and each operation takes amortized near-constant time.
+ *
+ * @author Han Xiao, Zhuoyun Wang, Yuxin Kan
+ */
+public class UnionFind {
+
+    private final int[] parent;
+    private final byte[] rank;
+    private int sets;
+
+
+    /**
+     * @param n the number of elements, each starting in a set of its own
+     */
+    public UnionFind(int n) {
+        parent = new int[n];
+        rank = new byte[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        sets = n;
+    }
+
+
+    /**
+     * Find the representative of v, pointing every other node on the way at
+     * its grandparent
+     *
+     * @param v the element
+     * @return the representative of the set holding v
+     */
+    public int find(int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+
+    /**
+     * Find the representative of v without shortening any paths. Several
+     * threads may call this at once as long as no union runs at the same
+     * time. Union by rank keeps the walk under log n steps.
+     *
+     * @param v the element
+     * @return the representative of the set holding v
+     */
+    public int root(int v) {
+        while (parent[v] != v) {
+            v = parent[v];
+        }
+        return v;
+    }
+
+
+    /**
+     * Merge the sets holding u and v
+     *
+     * @param u one element
+     * @param v the other element
+     * @return true if they were in different sets
+     */
+    public boolean union(int u, int v) {
+        int ru = find(u);
+        int rv = find(v);
+        if (ru == rv) {
+            return false;
+        }
+        if (rank[ru] < rank[rv]) {
+            parent[ru] = rv;
+        } else if (rank[ru] > rank[rv]) {
+            parent[rv] = ru;
+        } else {
+            parent[rv] = ru;
+            rank[ru]++;
+        }
+        sets--;
+        return true;
+    }
+
+
+    /**
+     * @param u one element
+     * @param v the other element
+     * @return true if u and v are in the same set
+     */
+    public boolean connected(int u, int v) {
+        return find(u) == find(v);
+    }
+
+
+    /**
+     * @return the number of disjoint sets
+     */
+    public int count() {
+        return sets;
+    }
+}